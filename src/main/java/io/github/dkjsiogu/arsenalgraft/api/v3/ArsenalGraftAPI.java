@@ -3,6 +3,7 @@ package io.github.dkjsiogu.arsenalgraft.api.v3;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.InstalledSlot;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationManager;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationTemplate;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.SlotSnapshot;
 import io.github.dkjsiogu.arsenalgraft.core.service.ServiceRegistry;
 import io.github.dkjsiogu.arsenalgraft.network.NetworkHandler;
 import io.github.dkjsiogu.arsenalgraft.network.ModificationSyncPacket;
@@ -16,10 +17,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Arsenal Graft 3.0 统一API入口
@@ -31,67 +34,18 @@ public final class ArsenalGraftAPI {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    /**
+     * 授予单个改造
+     * 
+     * 与批量授予走同一条路径：数量限制在玩家数据锁内校验，只写回一次并只发送一个增量同步包。
+     * 发布的 {@link ModificationGrantedEvent} 不标记为批量。
+     */
     public static boolean grantModification(Player player, ResourceLocation modificationId) {
         if (player == null || modificationId == null) {
             LOGGER.warn("Invalid params: player={}, modificationId={}", player, modificationId);
             return false;
         }
-
-        try {
-            ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
-            if (modManager == null) {
-                LOGGER.error("ModificationManager service not initialized");
-                return false;
-            }
-
-            Optional<ModificationTemplate> template = modManager.getTemplate(modificationId);
-            if (template.isEmpty()) {
-                LOGGER.warn("Modification template not found: {}", modificationId);
-                return false;
-            }
-
-            // 允许同模板多次安装：只在模板设置 maxInstallCount 限制时强制检查
-            long installedSame = getAllModifications(player).stream()
-                    .filter(s -> s.getTemplate().getId().equals(modificationId))
-                    .count();
-            if (template.get().getMaxInstallCount() > 0 && installedSame >= template.get().getMaxInstallCount()) {
-                LOGGER.info("Player {} reached per-template limit: {}", player.getName().getString(), modificationId);
-                return false;
-            }
-
-            // 全局插槽上限检查（当前固定10，可后续扩展）
-            List<InstalledSlot> existingSlots = getAllModifications(player);
-            if (existingSlots.size() >= getMaxSlots(player)) {
-                LOGGER.warn("Player {} slot limit reached", player.getName().getString());
-                return false;
-            }
-
-            InstalledSlot newSlot = new InstalledSlot(template.get());
-            boolean success = modManager.installSlot(player, newSlot);
-            if (!success) {
-                LOGGER.warn("Failed to install slot: player={}, modificationId={}", player.getName().getString(), modificationId);
-                return false;
-            }
-
-            if (player instanceof ServerPlayer serverPlayer) {
-                try {
-                    syncModificationToClient(serverPlayer, newSlot);
-                    syncAllModificationsToClient(serverPlayer);
-                } catch (Exception e) {
-                    LOGGER.error("Network sync failed: player={}, modificationId={}", player.getName().getString(), modificationId, e);
-                }
-            }
-
-            ModificationGrantedEvent event = new ModificationGrantedEvent(player, modificationId, newSlot);
-            MinecraftForge.EVENT_BUS.post(event);
-
-            LOGGER.info("Granted modification {} to player {}", modificationId, player.getName().getString());
-            return true;
-
-        } catch (Exception e) {
-            LOGGER.error("Error granting modification: player={}, modificationId={}", player.getName().getString(), modificationId, e);
-            return false;
-        }
+        return grant(player, List.of(modificationId), false);
     }
 
     public static boolean hasModification(Player player, ResourceLocation modificationId) {
@@ -106,11 +60,18 @@ public final class ArsenalGraftAPI {
         if (player == null || modificationId == null) return null;
         ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
         if (modManager == null) return null;
-        return modManager.getAllInstalledSlots(player)
-                .stream()
-                .filter(slot -> slot.getTemplate().getId().equals(modificationId))
-                .findFirst()
-                .orElse(null);
+        return modManager.getInstalledSlot(player, modificationId).orElse(null);
+    }
+
+    /**
+     * 按插槽唯一ID获取玩家的插槽（供菜单、网络包按 slotId 定位）
+     */
+    @Nullable
+    public static InstalledSlot getModificationBySlotId(Player player, UUID slotId) {
+        if (player == null || slotId == null) return null;
+        ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+        if (modManager == null) return null;
+        return modManager.getSlotById(player, slotId).orElse(null);
     }
 
     public static boolean removeModification(Player player, ResourceLocation modificationId) {
@@ -130,6 +91,119 @@ public final class ArsenalGraftAPI {
         return true;
     }
 
+    /**
+     * 批量授予改造（事务）
+     * 
+     * 先整体校验（模板存在、单模板数量上限、总插槽上限，批内重复项一并计入；数量限制在玩家数据锁内与安装一起校验），
+     * 任一不满足则不做任何修改；全部安装后只写回一次，并只发送一个增量同步包。
+     * 每个插槽的 {@link ModificationGrantedEvent} 标记为批量，最后再发布一个 {@link ModificationsGrantedEvent}。
+     * 
+     * @return 全部授予成功返回true；失败时玩家数据保持不变
+     */
+    public static boolean grantModifications(Player player, List<ResourceLocation> modificationIds) {
+        if (player == null || modificationIds == null) {
+            LOGGER.warn("Invalid params: player={}, modificationIds={}", player, modificationIds);
+            return false;
+        }
+        if (modificationIds.isEmpty()) return true;
+        return grant(player, modificationIds, true);
+    }
+
+    private static boolean grant(Player player, List<ResourceLocation> modificationIds, boolean batched) {
+        try {
+            ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+            if (modManager == null) {
+                LOGGER.error("ModificationManager service not initialized");
+                return false;
+            }
+
+            List<InstalledSlot> newSlots = new ArrayList<>(modificationIds.size());
+            for (ResourceLocation modificationId : modificationIds) {
+                Optional<ModificationTemplate> template = modManager.getTemplate(modificationId);
+                if (template.isEmpty()) {
+                    LOGGER.warn("Modification template not found: {}", modificationId);
+                    return false;
+                }
+                newSlots.add(new InstalledSlot(template.get()));
+            }
+
+            // 数量限制在管理器的玩家数据锁内与安装一起校验，并发授予不会越过上限
+            if (!modManager.installSlots(player, newSlots, getMaxSlots(player))) {
+                LOGGER.warn("Failed to install slots (limit reached or install failed): player={}, modificationIds={}",
+                        player.getName().getString(), modificationIds);
+                return false;
+            }
+            modManager.flushDirty(player);
+
+            if (player instanceof ServerPlayer serverPlayer) {
+                Map<String, CompoundTag> delta = new HashMap<>();
+                for (InstalledSlot slot : newSlots) {
+                    delta.put(slot.getSlotId().toString(), slot.serializeNBT());
+                }
+                sendDelta(serverPlayer, delta);
+            }
+
+            for (InstalledSlot slot : newSlots) {
+                MinecraftForge.EVENT_BUS.post(new ModificationGrantedEvent(player, slot.getTemplate().getId(), slot, batched));
+            }
+            if (batched) {
+                MinecraftForge.EVENT_BUS.post(new ModificationsGrantedEvent(player, newSlots));
+            }
+
+            LOGGER.info("Granted {} modifications to player {}", newSlots.size(), player.getName().getString());
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.error("Error granting modifications: player={}, modificationIds={}", player.getName().getString(), modificationIds, e);
+            return false;
+        }
+    }
+
+    /**
+     * 批量移除改造（事务）
+     * 
+     * 列表中同一改造出现多次时依次移除该模板的多个实例；任一改造未安装则不做任何修改。
+     * 全部卸载后只写回一次，并只发送一个增量同步包。
+     * 
+     * @return 全部移除成功返回true；失败时玩家数据保持不变
+     */
+    public static boolean removeModifications(Player player, List<ResourceLocation> modificationIds) {
+        if (player == null || modificationIds == null) return false;
+        if (modificationIds.isEmpty()) return true;
+
+        try {
+            ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+            if (modManager == null) return false;
+
+            // 实例的选择和卸载在管理器的玩家数据锁内一起完成
+            List<InstalledSlot> toRemove = modManager.uninstallModifications(player, modificationIds);
+            if (toRemove.isEmpty()) {
+                LOGGER.info("Failed to remove modifications from player {}: {}", player.getName().getString(), modificationIds);
+                return false;
+            }
+            modManager.flushDirty(player);
+
+            if (player instanceof ServerPlayer serverPlayer) {
+                Map<String, CompoundTag> delta = new HashMap<>();
+                for (InstalledSlot slot : toRemove) {
+                    delta.put(slot.getSlotId().toString(), removalMarker());
+                }
+                sendDelta(serverPlayer, delta);
+            }
+
+            for (InstalledSlot slot : toRemove) {
+                MinecraftForge.EVENT_BUS.post(new ModificationRemovedEvent(player, slot.getTemplate().getId(), slot));
+            }
+
+            LOGGER.info("Removed {} modifications from player {}", toRemove.size(), player.getName().getString());
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.error("Error removing modifications: player={}, modificationIds={}", player.getName().getString(), modificationIds, e);
+            return false;
+        }
+    }
+
     public static List<InstalledSlot> getAllModifications(Player player) {
         if (player == null) return List.of();
         ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
@@ -137,6 +211,16 @@ public final class ArsenalGraftAPI {
         return modManager.getAllInstalledSlots(player);
     }
 
+    /**
+     * 获取玩家插槽的不可变快照；可保存版本号用于判断之后是否发生变化
+     */
+    public static SlotSnapshot getModificationSnapshot(Player player) {
+        if (player == null) return SlotSnapshot.EMPTY;
+        ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+        if (modManager == null) return SlotSnapshot.EMPTY;
+        return modManager.getSlotSnapshot(player);
+    }
+
     public static ModificationTemplate getModificationTemplate(ResourceLocation id) {
         ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
         if (modManager == null) return null;
@@ -150,7 +234,7 @@ public final class ArsenalGraftAPI {
     }
 
     /**
-     * 立即持久化玩家当前所有改造槽位（写入统一的 arsenalgraft_data.installed_slots）。
+     * 立即持久化玩家当前所有改造槽位（写入玩家改造数据文件中的 installed_slots）。
      * 供容器关闭、登出等场景调用，避免内存状态未写入导致的物品丢失。
      */
     public static void savePlayerModifications(Player player) {
@@ -163,6 +247,33 @@ public final class ArsenalGraftAPI {
         } catch (Exception ignored) {}
     }
 
+    /**
+     * 标记某个改造槽位内容已变化（库存编辑、组件状态更新等），
+     * 由写回任务合并后持久化，不会立即序列化。
+     */
+    public static void markModificationDirty(Player player, UUID slotId) {
+        if (player == null || slotId == null) return;
+        try {
+            ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+            if (modManager != null) {
+                modManager.markSlotDirty(player, slotId);
+            }
+        } catch (Exception ignored) {}
+    }
+
+    /**
+     * 立即写回玩家累积的改造变更（只序列化变化过的槽位）。
+     */
+    public static void flushModifications(Player player) {
+        if (player == null) return;
+        try {
+            ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+            if (modManager != null) {
+                modManager.flushDirty(player);
+            }
+        } catch (Exception ignored) {}
+    }
+
     public static void registerModificationTemplate(ResourceLocation id, ModificationTemplate template) {
         ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
         if (modManager != null) {
@@ -170,6 +281,16 @@ public final class ArsenalGraftAPI {
         }
     }
 
+    /**
+     * 批量注册改造模板（一次发布）
+     */
+    public static void registerModificationTemplates(Map<ResourceLocation, ModificationTemplate> templates) {
+        ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+        if (modManager != null) {
+            modManager.registerTemplates(templates);
+        }
+    }
+
     public static int getMaxSlots(Player player) {
         int baseLimit = 10;
         return baseLimit;
@@ -179,16 +300,40 @@ public final class ArsenalGraftAPI {
         private final Player player;
         private final ResourceLocation modificationId;
         private final InstalledSlot installedSlot;
+        private final boolean batched;
 
         public ModificationGrantedEvent(Player player, ResourceLocation modificationId, InstalledSlot installedSlot) {
+            this(player, modificationId, installedSlot, false);
+        }
+
+        public ModificationGrantedEvent(Player player, ResourceLocation modificationId, InstalledSlot installedSlot, boolean batched) {
             this.player = player;
             this.modificationId = modificationId;
             this.installedSlot = installedSlot;
+            this.batched = batched;
         }
 
         public Player getPlayer() { return player; }
         public ResourceLocation getModificationId() { return modificationId; }
         public InstalledSlot getInstalledSlot() { return installedSlot; }
+        /** 是否属于一次批量授予；批量授予结束后还会发布一个 {@link ModificationsGrantedEvent} */
+        public boolean isBatched() { return batched; }
+    }
+
+    /**
+     * 批量授予完成后发布一次，只关心"玩家插槽变化"而不关心单个插槽的监听者应监听此事件
+     */
+    public static class ModificationsGrantedEvent extends Event {
+        private final Player player;
+        private final List<InstalledSlot> installedSlots;
+
+        public ModificationsGrantedEvent(Player player, List<InstalledSlot> installedSlots) {
+            this.player = player;
+            this.installedSlots = List.copyOf(installedSlots);
+        }
+
+        public Player getPlayer() { return player; }
+        public List<InstalledSlot> getInstalledSlots() { return installedSlots; }
     }
 
     public static class ModificationRemovedEvent extends Event {
@@ -207,40 +352,30 @@ public final class ArsenalGraftAPI {
         public InstalledSlot getRemovedSlot() { return removedSlot; }
     }
 
-    private static void syncModificationToClient(ServerPlayer player, InstalledSlot slot) {
-        if (player == null || slot == null) return;
+    private static void syncModificationRemovalToClient(ServerPlayer player, InstalledSlot removedSlot) {
+        if (player == null || removedSlot == null) return;
         try {
-            CompoundTag slotData = slot.serializeNBT();
-            ModificationSyncPacket packet = new ModificationSyncPacket(player.getUUID(), slot.getSlotId().toString(), slotData);
+            ModificationSyncPacket packet = new ModificationSyncPacket(player.getUUID(), removedSlot.getSlotId().toString(), removalMarker());
             NetworkHandler.sendToPlayer(packet, player);
-            LOGGER.debug("Synced modification to client: player={}, slotId={}", player.getName().getString(), slot.getSlotId());
-        } catch (Exception e) { LOGGER.error("Sync failed", e); }
+            LOGGER.debug("Synced removal to client: player={}, slotId={}", player.getName().getString(), removedSlot.getSlotId());
+        } catch (Exception e) { LOGGER.error("Removal sync failed", e); }
     }
 
-    private static void syncAllModificationsToClient(ServerPlayer player) {
-        if (player == null) return;
+    /**
+     * 一次发送多个插槽的增量更新
+     */
+    private static void sendDelta(ServerPlayer player, Map<String, CompoundTag> delta) {
         try {
-            ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
-            if (modManager == null) return;
-            List<InstalledSlot> slots = modManager.getAllInstalledSlots(player);
-            Map<String, CompoundTag> allData = new HashMap<>();
-            for (InstalledSlot slot : slots) { allData.put(slot.getSlotId().toString(), slot.serializeNBT()); }
-            ModificationSyncPacket packet = new ModificationSyncPacket(player.getUUID(), allData);
-            NetworkHandler.sendToPlayer(packet, player);
-            LOGGER.debug("Synced all modifications to client: player={}, count={}", player.getName().getString(), slots.size());
-        } catch (Exception e) { LOGGER.error("Full sync failed", e); }
+            NetworkHandler.sendToPlayer(new ModificationSyncPacket(player.getUUID(), delta, false), player);
+            LOGGER.debug("Synced modification delta to client: player={}, count={}", player.getName().getString(), delta.size());
+        } catch (Exception e) { LOGGER.error("Delta sync failed", e); }
     }
 
-    private static void syncModificationRemovalToClient(ServerPlayer player, InstalledSlot removedSlot) {
-        if (player == null || removedSlot == null) return;
-        try {
-            CompoundTag emptyData = new CompoundTag();
-            emptyData.putBoolean("removed", true);
-            emptyData.putLong("removalTime", System.currentTimeMillis());
-            ModificationSyncPacket packet = new ModificationSyncPacket(player.getUUID(), removedSlot.getSlotId().toString(), emptyData);
-            NetworkHandler.sendToPlayer(packet, player);
-            LOGGER.debug("Synced removal to client: player={}, slotId={}", player.getName().getString(), removedSlot.getSlotId());
-        } catch (Exception e) { LOGGER.error("Removal sync failed", e); }
+    private static CompoundTag removalMarker() {
+        CompoundTag emptyData = new CompoundTag();
+        emptyData.putBoolean("removed", true);
+        emptyData.putLong("removalTime", System.currentTimeMillis());
+        return emptyData;
     }
 
 }
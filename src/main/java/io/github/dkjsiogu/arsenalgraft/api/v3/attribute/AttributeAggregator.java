@@ -0,0 +1,302 @@
+package io.github.dkjsiogu.arsenalgraft.api.v3.attribute;
+
+import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
+import io.github.dkjsiogu.arsenalgraft.api.v3.component.IModificationComponent;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.InstalledSlot;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationManager;
+import io.github.dkjsiogu.arsenalgraft.core.service.ServiceRegistry;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeInstance;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.entity.ai.attributes.Attributes;
+import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.event.OnDatapackSyncEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 玩家属性加成汇总
+ *
+ * 所有已安装改造的属性加成按（属性，运算）汇总为一个修改器，UUID 由属性和运算确定，
+ * 玩家身上的修改器数量只与涉及的属性种类有关，而与改造数量无关。
+ *
+ * 每份加成以（插槽ID，组件键）标识，安装/卸载时只增减对应的加成，并只重写受影响的修改器。
+ *
+ * 登录、重生和数据包重载时执行一次校准：移除玩家身上所有不属于当前汇总结果的
+ * Arsenal Graft 修改器（旧版本以随机 UUID 逐插槽添加的修改器、已卸载改造的残留），
+ * 然后按已安装的插槽一次性写入期望的汇总修改器。
+ *
+ * 只在服务器主线程访问。
+ */
+@Mod.EventBusSubscriber(modid = ArsenalGraft.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public final class AttributeAggregator {
+
+    public static final String MODIFIER_NAME_PREFIX = "Arsenal Graft ";
+
+    private static final Map<UUID, PlayerAttributes> players = new ConcurrentHashMap<>();
+
+    private AttributeAggregator() {}
+
+    /**
+     * 加成来源：插槽ID + 组件键，跨会话稳定
+     */
+    public record ContributorKey(UUID slotId, String componentKey) {}
+
+    /**
+     * 汇总键：属性 + 运算
+     */
+    private record Key(Attribute attribute, AttributeModifier.Operation operation) {}
+
+    /**
+     * 单个玩家的汇总状态：每个来源的加成，以及每个汇总键当前的来源
+     */
+    private static final class PlayerAttributes {
+        final Map<ContributorKey, List<AttributeContributor.Contribution>> byContributor = new HashMap<>();
+        final Map<Key, Set<ContributorKey>> contributorsByKey = new HashMap<>();
+    }
+
+    /**
+     * 设置（替换）一个来源的加成，只重写受影响的汇总修改器
+     */
+    public static void apply(Player player, ContributorKey source, AttributeContributor contributor) {
+        if (player.level().isClientSide) return;
+        PlayerAttributes state = stateOf(player);
+        Set<Key> affected = detach(state, source);
+        affected.addAll(attach(state, source, contributor));
+        for (Key key : affected) {
+            write(player, state, key);
+        }
+    }
+
+    /**
+     * 移除一个来源的全部加成，只重写受影响的汇总修改器
+     */
+    public static void remove(Player player, ContributorKey source) {
+        if (player.level().isClientSide) return;
+        PlayerAttributes state = stateOf(player);
+        for (Key key : detach(state, source)) {
+            write(player, state, key);
+        }
+    }
+
+    /**
+     * 校准玩家身上的修改器：丢弃汇总状态，移除过期的 Arsenal Graft 修改器，
+     * 再按已安装插槽写入全部汇总修改器
+     */
+    public static void reconcile(Player player) {
+        if (player.level().isClientSide) return;
+        players.remove(player.getUUID());
+        stateOf(player);
+    }
+
+    /**
+     * 丢弃玩家的汇总状态（登出时）
+     */
+    public static void clear(UUID playerId) {
+        players.remove(playerId);
+    }
+
+    /**
+     * 汇总修改器的确定性 UUID
+     */
+    public static UUID modifierId(Attribute attribute, AttributeModifier.Operation operation) {
+        return modifierId(ForgeRegistries.ATTRIBUTES.getKey(attribute), operation);
+    }
+
+    /**
+     * 按属性的注册名计算汇总修改器的确定性 UUID
+     */
+    public static UUID modifierId(ResourceLocation attributeId, AttributeModifier.Operation operation) {
+        String name = ArsenalGraft.MODID + ":" + attributeId + "/" + operation.name();
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 合并同一（属性，运算）的全部加成：MULTIPLY_TOTAL 在原版中逐个相乘，其余运算逐个相加
+     */
+    static double aggregate(AttributeModifier.Operation operation, List<Double> amounts) {
+        if (operation == AttributeModifier.Operation.MULTIPLY_TOTAL) {
+            double product = 1.0;
+            for (double amount : amounts) {
+                product *= 1.0 + amount;
+            }
+            return product - 1.0;
+        }
+        double sum = 0.0;
+        for (double amount : amounts) {
+            sum += amount;
+        }
+        return sum;
+    }
+
+    private static PlayerAttributes stateOf(Player player) {
+        PlayerAttributes state = players.get(player.getUUID());
+        if (state != null) {
+            return state;
+        }
+        state = new PlayerAttributes();
+        players.put(player.getUUID(), state);
+        rebuild(player, state);
+        return state;
+    }
+
+    /**
+     * 按已安装插槽中激活的属性组件重建汇总状态，清理过期修改器后一次性写入
+     */
+    private static void rebuild(Player player, PlayerAttributes state) {
+        ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+        if (modManager == null) return;
+
+        // 旧版本组件直接以自身配置的 UUID 添加过修改器，这些也需要清理
+        Set<UUID> legacyIds = new HashSet<>();
+        for (InstalledSlot slot : modManager.getSlotSnapshot(player).getSlots()) {
+            if (!slot.isInstalled()) continue;
+            // 先看模板原型，只水合属性组件
+            for (Map.Entry<String, IModificationComponent> entry : slot.getTemplate().getComponents().entrySet()) {
+                if (!(entry.getValue() instanceof AttributeContributor)) continue;
+                IModificationComponent component = slot.getComponent(entry.getKey(), IModificationComponent.class);
+                if (component instanceof AttributeContributor contributor) {
+                    contributor.collectLegacyModifierIds(legacyIds);
+                    if (component.isActive()) {
+                        attach(state, new ContributorKey(slot.getSlotId(), entry.getKey()), contributor);
+                    }
+                }
+            }
+        }
+
+        int removed = 0;
+        for (Attribute attribute : ForgeRegistries.ATTRIBUTES.getValues()) {
+            AttributeInstance instance = player.getAttribute(attribute);
+            if (instance == null) continue;
+            Set<UUID> expected = new HashSet<>();
+            for (AttributeModifier.Operation operation : AttributeModifier.Operation.values()) {
+                if (state.contributorsByKey.containsKey(new Key(attribute, operation))) {
+                    expected.add(modifierId(attribute, operation));
+                } else {
+                    // 已没有来源的汇总修改器（例如上次会话卸载后残留在玩家存档里的）
+                    if (instance.getModifier(modifierId(attribute, operation)) != null) {
+                        instance.removeModifier(modifierId(attribute, operation));
+                        removed++;
+                    }
+                }
+            }
+            for (AttributeModifier modifier : List.copyOf(instance.getModifiers())) {
+                boolean ours = modifier.getName().startsWith(MODIFIER_NAME_PREFIX) || legacyIds.contains(modifier.getId());
+                if (ours && !expected.contains(modifier.getId())) {
+                    instance.removeModifier(modifier.getId());
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            ArsenalGraft.LOGGER.info("已清理玩家 {} 的 {} 个过期属性修改器", player.getName().getString(), removed);
+        }
+
+        for (Key key : state.contributorsByKey.keySet()) {
+            write(player, state, key);
+        }
+    }
+
+    private static Set<Key> attach(PlayerAttributes state, ContributorKey source, AttributeContributor contributor) {
+        List<AttributeContributor.Contribution> contributions = new ArrayList<>();
+        contributor.collectContributions(contributions);
+        Set<Key> affected = new HashSet<>();
+        if (contributions.isEmpty()) {
+            return affected;
+        }
+        state.byContributor.put(source, List.copyOf(contributions));
+        for (AttributeContributor.Contribution contribution : contributions) {
+            Key key = new Key(contribution.attribute(), contribution.operation());
+            state.contributorsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(source);
+            affected.add(key);
+        }
+        return affected;
+    }
+
+    private static Set<Key> detach(PlayerAttributes state, ContributorKey source) {
+        Set<Key> affected = new HashSet<>();
+        List<AttributeContributor.Contribution> previous = state.byContributor.remove(source);
+        if (previous != null) {
+            for (AttributeContributor.Contribution contribution : previous) {
+                Key key = new Key(contribution.attribute(), contribution.operation());
+                Set<ContributorKey> sources = state.contributorsByKey.get(key);
+                if (sources != null) {
+                    sources.remove(source);
+                    if (sources.isEmpty()) {
+                        state.contributorsByKey.remove(key);
+                    }
+                }
+                affected.add(key);
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * 重新计算一个汇总键的总量并写入玩家（先移除旧修改器，没有来源时不再添加）
+     */
+    private static void write(Player player, PlayerAttributes state, Key key) {
+        AttributeInstance instance = player.getAttribute(key.attribute());
+        if (instance == null) return;
+
+        List<Double> amounts = new ArrayList<>();
+        Set<ContributorKey> sources = state.contributorsByKey.get(key);
+        if (sources != null) {
+            for (ContributorKey source : sources) {
+                for (AttributeContributor.Contribution contribution : state.byContributor.get(source)) {
+                    if (contribution.attribute() != key.attribute() || contribution.operation() != key.operation()) continue;
+                    amounts.add(contribution.amount());
+                }
+            }
+        }
+        double total = aggregate(key.operation(), amounts);
+
+        UUID id = modifierId(key.attribute(), key.operation());
+        instance.removeModifier(id);
+        if (!amounts.isEmpty() && total != 0.0) {
+            instance.addPermanentModifier(new AttributeModifier(id, MODIFIER_NAME_PREFIX + "aggregate", total, key.operation()));
+        }
+        if (key.attribute() == Attributes.MAX_HEALTH && player.getHealth() > player.getMaxHealth()) {
+            player.setHealth(player.getMaxHealth());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        reconcile(event.getEntity());
+    }
+
+    @SubscribeEvent
+    public static void onPlayerRespawn(PlayerEvent.PlayerRespawnEvent event) {
+        // 重生后是新的玩家实体，重新写入全部汇总修改器
+        reconcile(event.getEntity());
+    }
+
+    @SubscribeEvent
+    public static void onDatapackSync(OnDatapackSyncEvent event) {
+        // 数据包重载（player 为 null）后模板配置可能变化，校准所有在线玩家；登录时的同步由登录事件处理
+        if (event.getPlayer() != null) return;
+        for (ServerPlayer player : event.getPlayerList().getPlayers()) {
+            reconcile(player);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        clear(event.getEntity().getUUID());
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.dkjsiogu.arsenalgraft.api.v3.attribute;
+
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 属性贡献者
+ *
+ * 提供属性加成的组件实现该接口，由 {@link AttributeAggregator} 统一汇总成每个属性、每种运算一个修改器，
+ * 组件自己不再直接向玩家添加修改器。插槽安装/卸载时负责登记和撤销该组件的加成。
+ */
+public interface AttributeContributor {
+
+    /**
+     * 收集该组件当前提供的属性加成
+     */
+    void collectContributions(List<Contribution> out);
+
+    /**
+     * 收集旧版本中该组件可能直接添加到玩家身上的修改器ID，校准时一并清理
+     */
+    default void collectLegacyModifierIds(Set<UUID> out) {}
+
+    /**
+     * 单条属性加成
+     */
+    record Contribution(Attribute attribute, AttributeModifier.Operation operation, double amount) {}
+}
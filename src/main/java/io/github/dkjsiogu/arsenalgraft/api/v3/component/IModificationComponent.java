@@ -39,9 +39,40 @@ public interface IModificationComponent extends INBTSerializable<CompoundTag> {
     
     /**
      * 每tick更新 (如果需要)
+     * 
+     * 只有 {@link #isTickable()} 返回 true 的组件才会被服务器的 tick 驱动调用。
      */
     default void tick(Player player) {}
     
+    /**
+     * 组件是否需要服务器每tick驱动
+     * 
+     * 纯被动组件（物品栏、属性）保持默认 false，这样只拥有被动改造的玩家不会产生任何每tick开销。
+     */
+    default boolean isTickable() {
+        return false;
+    }
+    
+    /**
+     * tick 间隔（单位：tick），仅对可 tick 组件有效
+     * 
+     * 调度器按该间隔调用 {@link #tick(Player)}，并按插槽ID把不同玩家的组件分散到不同的tick，
+     * 检查类逻辑（如续期）应返回尽量大的间隔以降低每tick开销。
+     */
+    default int getTickInterval() {
+        return 1;
+    }
+    
+    /**
+     * 组件状态版本号
+     *
+     * 组件每次发生会影响序列化结果的变化时递增，插槽据此判断能否复用上一次的序列化结果。
+     * 返回负数表示组件不跟踪变化，每次序列化都会重新生成。
+     */
+    default int getRevision() {
+        return -1;
+    }
+    
     /**
      * 创建组件的副本
      */
@@ -1,28 +1,44 @@
 package io.github.dkjsiogu.arsenalgraft.api.v3.component.impl;
 
+import io.github.dkjsiogu.arsenalgraft.api.v3.attribute.AttributeAggregator;
+import io.github.dkjsiogu.arsenalgraft.api.v3.attribute.AttributeContributor;
 import io.github.dkjsiogu.arsenalgraft.api.v3.component.IModificationComponent;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.entity.ai.attributes.Attribute;
 import net.minecraft.world.entity.ai.attributes.AttributeModifier;
 import net.minecraft.world.entity.ai.attributes.Attributes;
 import net.minecraft.world.entity.player.Player;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * 属性组件实现
  * 
  * 为玩家提供属性修改功能。
+ * 
+ * 属性配置是不可变的，由模板原型及其所有副本共享；只有反序列化得到不同配置时才替换为新的映射。
+ * 
+ * 加成不直接添加到玩家身上，而是交给 {@link AttributeAggregator} 与其他改造汇总。
  */
-public class AttributeComponent implements IModificationComponent {
+public class AttributeComponent implements IModificationComponent, AttributeContributor {
     
-    private final Map<String, Double> attributes;
+    // 共享的不可变配置（写时替换）
+    private Map<String, Double> attributes;
     private boolean active = false;
-    private final Map<String, UUID> appliedModifiers = new HashMap<>();
+    // 状态版本号，属性配置或激活状态变化时递增
+    private int revision;
     
     public AttributeComponent(Map<String, Double> attributes) {
-        this.attributes = new HashMap<>(attributes);
+        this.attributes = Map.copyOf(attributes);
+    }
+    
+    /**
+     * 副本构造：直接共享不可变配置
+     */
+    private AttributeComponent(AttributeComponent prototype) {
+        this.attributes = prototype.attributes;
     }
     
     @Override
@@ -37,18 +53,25 @@ public class AttributeComponent implements IModificationComponent {
     
     @Override
     public void setActive(boolean active) {
-        this.active = active;
+        if (this.active != active) {
+            this.active = active;
+            revision++;
+        }
+    }
+    
+    @Override
+    public int getRevision() {
+        return revision;
     }
     
     @Override
     public void onInstall(Player player) {
+        // 加成由插槽登记到 AttributeAggregator
         setActive(true);
-        applyAttributes(player);
     }
     
     @Override
     public void onUninstall(Player player) {
-        removeAttributes(player);
         setActive(false);
     }
     
@@ -57,77 +80,32 @@ public class AttributeComponent implements IModificationComponent {
         // 属性组件通常不需要每tick处理
     }
     
-    private void applyAttributes(Player player) {
+    @Override
+    public void collectContributions(List<Contribution> out) {
         for (Map.Entry<String, Double> entry : attributes.entrySet()) {
-            String attrName = entry.getKey();
-            double value = entry.getValue();
-            
-            try {
-                var attribute = switch (attrName) {
-                    case "max_health" -> Attributes.MAX_HEALTH;
-                    case "movement_speed" -> Attributes.MOVEMENT_SPEED;
-                    case "attack_damage" -> Attributes.ATTACK_DAMAGE;
-                    case "armor" -> Attributes.ARMOR;
-                    case "armor_toughness" -> Attributes.ARMOR_TOUGHNESS;
-                    case "attack_speed" -> Attributes.ATTACK_SPEED;
-                    case "luck" -> Attributes.LUCK;
-                    default -> null;
-                };
-                
-                if (attribute != null) {
-                    UUID modifierId = UUID.randomUUID();
-                    AttributeModifier modifier = new AttributeModifier(
-                        modifierId,
-                        "Arsenal Graft " + attrName,
-                        value,
-                        AttributeModifier.Operation.ADDITION
-                    );
-                    
-                    var attrInstance = player.getAttribute(attribute);
-                    if (attrInstance != null) {
-                        attrInstance.addPermanentModifier(modifier);
-                        appliedModifiers.put(attrName, modifierId);
-                    }
-                }
-            } catch (Exception e) {
-                // 忽略无效的属性
+            Attribute attribute = resolveAttribute(entry.getKey());
+            if (attribute != null) {
+                out.add(new Contribution(attribute, AttributeModifier.Operation.ADDITION, entry.getValue()));
             }
         }
     }
     
-    private void removeAttributes(Player player) {
-        for (Map.Entry<String, UUID> entry : appliedModifiers.entrySet()) {
-            String attrName = entry.getKey();
-            UUID modifierId = entry.getValue();
-            
-            try {
-                var attribute = switch (attrName) {
-                    case "max_health" -> Attributes.MAX_HEALTH;
-                    case "movement_speed" -> Attributes.MOVEMENT_SPEED;
-                    case "attack_damage" -> Attributes.ATTACK_DAMAGE;
-                    case "armor" -> Attributes.ARMOR;
-                    case "armor_toughness" -> Attributes.ARMOR_TOUGHNESS;
-                    case "attack_speed" -> Attributes.ATTACK_SPEED;
-                    case "luck" -> Attributes.LUCK;
-                    default -> null;
-                };
-                
-                if (attribute != null) {
-                    var attrInstance = player.getAttribute(attribute);
-                    if (attrInstance != null) {
-                        attrInstance.removeModifier(modifierId);
-                    }
-                }
-            } catch (Exception e) {
-                // 忽略移除失败
-            }
-        }
-        appliedModifiers.clear();
+    private static Attribute resolveAttribute(String attrName) {
+        return switch (attrName) {
+            case "max_health" -> Attributes.MAX_HEALTH;
+            case "movement_speed" -> Attributes.MOVEMENT_SPEED;
+            case "attack_damage" -> Attributes.ATTACK_DAMAGE;
+            case "armor" -> Attributes.ARMOR;
+            case "armor_toughness" -> Attributes.ARMOR_TOUGHNESS;
+            case "attack_speed" -> Attributes.ATTACK_SPEED;
+            case "luck" -> Attributes.LUCK;
+            default -> null; // 忽略无效的属性
+        };
     }
     
     @Override
     public IModificationComponent copy() {
-        return new AttributeComponent(attributes);
+        return new AttributeComponent(this);
     }
     
     @Override
@@ -148,13 +126,17 @@ public class AttributeComponent implements IModificationComponent {
     @Override
     public void deserializeNBT(CompoundTag nbt) {
         this.active = nbt.getBoolean("active");
+        revision++;
         
         if (nbt.contains("attributes")) {
             CompoundTag attributesTag = nbt.getCompound("attributes");
-            attributes.clear();
-            
+            Map<String, Double> loaded = new HashMap<>();
             for (String key : attributesTag.getAllKeys()) {
-                attributes.put(key, attributesTag.getDouble(key));
+                loaded.put(key, attributesTag.getDouble(key));
+            }
+            // 配置与当前一致时继续共享原型的映射
+            if (!loaded.equals(attributes)) {
+                attributes = Map.copyOf(loaded);
             }
         }
     }
@@ -1,29 +1,38 @@
 package io.github.dkjsiogu.arsenalgraft.api.v3.component.impl;
 
+import io.github.dkjsiogu.arsenalgraft.api.v3.attribute.AttributeAggregator;
+import io.github.dkjsiogu.arsenalgraft.api.v3.attribute.AttributeContributor;
 import io.github.dkjsiogu.arsenalgraft.api.v3.component.IModificationComponent;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.entity.ai.attributes.AttributeModifier;
 import net.minecraft.world.entity.ai.attributes.Attribute;
-import net.minecraft.world.entity.ai.attributes.AttributeInstance;
 import net.minecraft.world.entity.player.Player;
 import net.minecraftforge.registries.ForgeRegistries;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * 属性修改组件
  * 
  * 用于修改玩家的属性，如血量、攻击力、速度等
+ * 
+ * 修改器配置在模板原型和副本之间共享，增删修改器时才复制一份（写时复制）。
+ * 修改器的数值交给 {@link AttributeAggregator} 按属性和运算汇总后再应用到玩家身上。
  */
-public class AttributeModificationComponent implements IModificationComponent {
+public class AttributeModificationComponent implements IModificationComponent, AttributeContributor {
     
     private static final String COMPONENT_TYPE = "attribute_modification";
     
     private boolean active = false;
-    private final Map<Attribute, AttributeModifier> modifiers = new HashMap<>();
-    private final Map<Attribute, UUID> appliedModifierIds = new HashMap<>();
+    // 修改器配置（写时复制），modifiersShared 为 true 时可能被其他副本引用，不能原地修改
+    private Map<Attribute, AttributeModifier> modifiers = new HashMap<>();
+    private boolean modifiersShared;
+    // 状态版本号，修改器配置或激活状态变化时递增
+    private int revision;
     
     public AttributeModificationComponent() {}
     
@@ -31,14 +40,26 @@ public class AttributeModificationComponent implements IModificationComponent {
      * 添加属性修改器
      */
     public void addAttributeModifier(Attribute attribute, AttributeModifier modifier) {
-        modifiers.put(attribute, modifier);
+        mutableModifiers().put(attribute, modifier);
+        revision++;
     }
     
     /**
      * 移除属性修改器
      */
     public void removeAttributeModifier(Attribute attribute) {
-        modifiers.remove(attribute);
+        if (modifiers.containsKey(attribute)) {
+            mutableModifiers().remove(attribute);
+            revision++;
+        }
+    }
+    
+    private Map<Attribute, AttributeModifier> mutableModifiers() {
+        if (modifiersShared) {
+            modifiers = new HashMap<>(modifiers);
+            modifiersShared = false;
+        }
+        return modifiers;
     }
     
     @Override
@@ -53,40 +74,44 @@ public class AttributeModificationComponent implements IModificationComponent {
     
     @Override
     public void setActive(boolean active) {
-        this.active = active;
+        if (this.active != active) {
+            this.active = active;
+            revision++;
+        }
+    }
+    
+    @Override
+    public int getRevision() {
+        return revision;
     }
     
     @Override
     public void onInstall(Player player) {
         if (!active) return;
         
-        // 应用所有属性修改器
+        // 修改器由插槽登记到 AttributeAggregator 与其他改造汇总
+        System.out.println("[AttributeModificationComponent] 应用属性修改器: " + modifiers.size() + " 个");
+    }
+    
+    @Override
+    public void onUninstall(Player player) {
+        // 插槽卸载时从 AttributeAggregator 撤销
+    }
+    
+    @Override
+    public void collectContributions(List<Contribution> out) {
         for (Map.Entry<Attribute, AttributeModifier> entry : modifiers.entrySet()) {
-            AttributeInstance attributeInstance = player.getAttribute(entry.getKey());
-            if (attributeInstance != null) {
-                AttributeModifier modifier = entry.getValue();
-                
-                // 确保修改器尚未应用
-                if (!attributeInstance.hasModifier(modifier)) {
-                    attributeInstance.addPermanentModifier(modifier);
-                    appliedModifierIds.put(entry.getKey(), modifier.getId());
-                    System.out.println("[AttributeModificationComponent] 应用属性修改器: " + ForgeRegistries.ATTRIBUTES.getKey(entry.getKey()) + " -> " + modifier.getAmount());
-                }
-            }
+            AttributeModifier modifier = entry.getValue();
+            out.add(new Contribution(entry.getKey(), modifier.getOperation(), modifier.getAmount()));
         }
     }
     
     @Override
-    public void onUninstall(Player player) {
-        // 移除所有属性修改器
-        for (Map.Entry<Attribute, UUID> entry : appliedModifierIds.entrySet()) {
-            AttributeInstance attributeInstance = player.getAttribute(entry.getKey());
-            if (attributeInstance != null) {
-                attributeInstance.removeModifier(entry.getValue());
-                System.out.println("[AttributeModificationComponent] 移除属性修改器: " + ForgeRegistries.ATTRIBUTES.getKey(entry.getKey()));
-            }
+    public void collectLegacyModifierIds(Set<UUID> out) {
+        // 旧版本直接以配置的 UUID 添加修改器
+        for (AttributeModifier modifier : modifiers.values()) {
+            out.add(modifier.getId());
         }
-        appliedModifierIds.clear();
     }
     
     @Override
@@ -98,7 +123,10 @@ public class AttributeModificationComponent implements IModificationComponent {
     public IModificationComponent copy() {
         AttributeModificationComponent copy = new AttributeModificationComponent();
         copy.active = this.active;
-        copy.modifiers.putAll(this.modifiers);
+        // 共享修改器配置，任一方修改时再复制
+        copy.modifiers = this.modifiers;
+        copy.modifiersShared = true;
+        this.modifiersShared = true;
         return copy;
     }
     
@@ -130,11 +158,12 @@ public class AttributeModificationComponent implements IModificationComponent {
     @Override
     public void deserializeNBT(CompoundTag tag) {
         this.active = tag.getBoolean("active");
+        revision++;
         
         // 反序列化修改器
         if (tag.contains("modifiers")) {
             CompoundTag modifiersTag = tag.getCompound("modifiers");
-            modifiers.clear();
+            Map<Attribute, AttributeModifier> loaded = new HashMap<>();
             
             for (String attributeName : modifiersTag.getAllKeys()) {
                 Attribute attribute = ForgeRegistries.ATTRIBUTES.getValue(net.minecraft.resources.ResourceLocation.tryParse(attributeName));
@@ -147,9 +176,27 @@ public class AttributeModificationComponent implements IModificationComponent {
                     UUID uuid = UUID.fromString(modifierTag.getString("uuid"));
                     
                     AttributeModifier modifier = new AttributeModifier(uuid, name, amount, operation);
-                    modifiers.put(attribute, modifier);
+                    loaded.put(attribute, modifier);
                 }
             }
+            // 配置与当前一致时继续共享
+            if (!sameModifiers(loaded)) {
+                modifiers = loaded;
+                modifiersShared = false;
+            }
+        }
+    }
+    
+    private boolean sameModifiers(Map<Attribute, AttributeModifier> other) {
+        if (other.size() != modifiers.size()) return false;
+        for (Map.Entry<Attribute, AttributeModifier> entry : other.entrySet()) {
+            AttributeModifier current = modifiers.get(entry.getKey());
+            AttributeModifier loaded = entry.getValue();
+            if (current == null || !current.getId().equals(loaded.getId()) || current.getAmount() != loaded.getAmount()
+                || current.getOperation() != loaded.getOperation() || !current.getName().equals(loaded.getName())) {
+                return false;
+            }
         }
+        return true;
     }
 }
@@ -14,14 +14,20 @@ import java.util.Map;
  * 特效组件
  * 
  * 管理药水效果、视觉特效、音效等
+ * 
+ * 效果配置在模板原型和副本之间共享，修改时才复制一份（写时复制）。
  */
 public class EffectComponent implements IModificationComponent {
     
     private static final String COMPONENT_TYPE = "effect";
     
     private boolean active = false;
-    private final Map<MobEffect, EffectData> effects = new HashMap<>();
-    private final Map<String, Object> visualEffects = new HashMap<>();
+    // 效果配置（写时复制），shared 为 true 时可能被其他副本引用，不能原地修改
+    private Map<MobEffect, EffectData> effects = new HashMap<>();
+    private Map<String, Object> visualEffects = new HashMap<>();
+    private boolean shared;
+    // 状态版本号，效果配置或激活状态变化时递增
+    private int revision;
     
     public EffectComponent() {}
     
@@ -40,13 +46,28 @@ public class EffectComponent implements IModificationComponent {
             this.ambient = ambient;
             this.visible = visible;
         }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EffectData other)) return false;
+            return amplifier == other.amplifier && duration == other.duration
+                && ambient == other.ambient && visible == other.visible;
+        }
+        
+        @Override
+        public int hashCode() {
+            return java.util.Objects.hash(amplifier, duration, ambient, visible);
+        }
     }
     
     /**
      * 添加药水效果
      */
     public void addPotionEffect(MobEffect effect, int amplifier, int duration, boolean ambient, boolean visible) {
+        unshare();
         effects.put(effect, new EffectData(amplifier, duration, ambient, visible));
+        revision++;
     }
     
     /**
@@ -60,21 +81,42 @@ public class EffectComponent implements IModificationComponent {
      * 移除药水效果
      */
     public void removePotionEffect(MobEffect effect) {
-        effects.remove(effect);
+        if (effects.containsKey(effect)) {
+            unshare();
+            effects.remove(effect);
+            revision++;
+        }
     }
     
     /**
      * 设置视觉特效
      */
     public void setVisualEffect(String effectName, Object data) {
+        unshare();
         visualEffects.put(effectName, data);
+        revision++;
     }
     
     /**
      * 移除视觉特效
      */
     public void removeVisualEffect(String effectName) {
-        visualEffects.remove(effectName);
+        if (visualEffects.containsKey(effectName)) {
+            unshare();
+            visualEffects.remove(effectName);
+            revision++;
+        }
+    }
+    
+    /**
+     * 修改前确保配置为本实例独占
+     */
+    private void unshare() {
+        if (shared) {
+            effects = new HashMap<>(effects);
+            visualEffects = new HashMap<>(visualEffects);
+            shared = false;
+        }
     }
     
     /**
@@ -118,7 +160,15 @@ public class EffectComponent implements IModificationComponent {
     
     @Override
     public void setActive(boolean active) {
-        this.active = active;
+        if (this.active != active) {
+            this.active = active;
+            revision++;
+        }
+    }
+    
+    @Override
+    public int getRevision() {
+        return revision;
     }
     
     @Override
@@ -135,6 +185,18 @@ public class EffectComponent implements IModificationComponent {
         System.out.println("[EffectComponent] 为 " + player.getName().getString() + " 移除特效");
     }
     
+    @Override
+    public boolean isTickable() {
+        // 永久效果需要定期续期
+        return true;
+    }
+    
+    @Override
+    public int getTickInterval() {
+        // 剩余时间低于100tick时续期，每秒检查一次足够
+        return 20;
+    }
+    
     @Override
     public void tick(Player player) {
         if (!active) return;
@@ -165,8 +227,11 @@ public class EffectComponent implements IModificationComponent {
     public IModificationComponent copy() {
         EffectComponent copy = new EffectComponent();
         copy.active = this.active;
-        copy.effects.putAll(this.effects);
-        copy.visualEffects.putAll(this.visualEffects);
+        // EffectData 不可变，直接共享配置，任一方修改时再复制
+        copy.effects = this.effects;
+        copy.visualEffects = this.visualEffects;
+        copy.shared = true;
+        this.shared = true;
         return copy;
     }
     
@@ -214,11 +279,12 @@ public class EffectComponent implements IModificationComponent {
     @Override
     public void deserializeNBT(CompoundTag tag) {
         this.active = tag.getBoolean("active");
+        revision++;
         
         // 反序列化药水效果
         if (tag.contains("effects")) {
             CompoundTag effectsTag = tag.getCompound("effects");
-            effects.clear();
+            Map<MobEffect, EffectData> loaded = new HashMap<>();
             
             for (String effectName : effectsTag.getAllKeys()) {
                 MobEffect effect = ForgeRegistries.MOB_EFFECTS.getValue(
@@ -232,29 +298,38 @@ public class EffectComponent implements IModificationComponent {
                     boolean ambient = effectTag.getBoolean("ambient");
                     boolean visible = effectTag.getBoolean("visible");
                     
-                    effects.put(effect, new EffectData(amplifier, duration, ambient, visible));
+                    loaded.put(effect, new EffectData(amplifier, duration, ambient, visible));
                 }
             }
+            // 配置与当前一致时继续共享
+            if (!loaded.equals(effects)) {
+                unshare();
+                effects = loaded;
+            }
         }
         
         // 反序列化视觉特效
         if (tag.contains("visualEffects")) {
             CompoundTag visualTag = tag.getCompound("visualEffects");
-            visualEffects.clear();
+            Map<String, Object> loaded = new HashMap<>();
             
             for (String key : visualTag.getAllKeys()) {
                 net.minecraft.nbt.Tag valueTag = visualTag.get(key);
                 
                 if (valueTag instanceof net.minecraft.nbt.StringTag) {
-                    visualEffects.put(key, visualTag.getString(key));
+                    loaded.put(key, visualTag.getString(key));
                 } else if (valueTag instanceof net.minecraft.nbt.IntTag) {
-                    visualEffects.put(key, visualTag.getInt(key));
+                    loaded.put(key, visualTag.getInt(key));
                 } else if (valueTag instanceof net.minecraft.nbt.DoubleTag) {
-                    visualEffects.put(key, visualTag.getDouble(key));
+                    loaded.put(key, visualTag.getDouble(key));
                 } else if (valueTag instanceof net.minecraft.nbt.ByteTag) {
-                    visualEffects.put(key, visualTag.getBoolean(key));
+                    loaded.put(key, visualTag.getBoolean(key));
                 }
             }
+            if (!loaded.equals(visualEffects)) {
+                unshare();
+                visualEffects = loaded;
+            }
         }
     }
 }
@@ -3,8 +3,11 @@ package io.github.dkjsiogu.arsenalgraft.api.v3.component.impl;
 import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
 import io.github.dkjsiogu.arsenalgraft.api.v3.component.IInventoryComponent;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
 import net.minecraft.world.Container;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraftforge.items.ItemStackHandler;
 
@@ -17,41 +20,34 @@ import javax.annotation.Nonnull;
  */
 public class InventoryComponentImpl implements IInventoryComponent {
     
-    private final ItemStackHandler handler;
-    private final Container container;
+    // 物品存储按需分配：从未放入物品的插槽只保存槽位数量，不创建 ItemStackHandler
+    private int slotCount;
+    private ItemStackHandler handler;
+    private Container container;
     private String slotType = "default";
     private boolean active = true;
+    // 状态版本号，物品变化或属性变化时递增
+    private int revision;
     
     public InventoryComponentImpl(int slotCount) {
-        this.handler = new ItemStackHandler(slotCount);
-        // 完整委托Container，避免SimpleContainer内部数组与handler不同步导致的显示/提取问题
-        this.container = new net.minecraft.world.Container() {
-            @Override public int getContainerSize() { return handler.getSlots(); }
-            @Override public boolean isEmpty() {
-                for (int i = 0; i < handler.getSlots(); i++) if (!handler.getStackInSlot(i).isEmpty()) return false; return true;
-            }
-            @Override @Nonnull public ItemStack getItem(int slot) { return handler.getStackInSlot(slot); }
-            @Override @Nonnull public ItemStack removeItem(int slot, int count) {
-                ItemStack current = handler.getStackInSlot(slot);
-                if (current.isEmpty() || count <= 0) return ItemStack.EMPTY;
-                int toExtract = Math.min(count, current.getCount());
-                ItemStack result = current.copy(); result.setCount(toExtract);
-                current.shrink(toExtract);
-                if (current.getCount() <= 0) handler.setStackInSlot(slot, ItemStack.EMPTY); else handler.setStackInSlot(slot, current);
-                setChanged();
-                return result;
-            }
-            @Override @Nonnull public ItemStack removeItemNoUpdate(int slot) {
-                ItemStack current = handler.getStackInSlot(slot);
-                if (current.isEmpty()) return ItemStack.EMPTY;
-                handler.setStackInSlot(slot, ItemStack.EMPTY);
-                return current;
-            }
-            @Override public void setItem(int slot, @Nonnull ItemStack stack) { handler.setStackInSlot(slot, stack); setChanged(); }
-            @Override public void setChanged() { InventoryComponentImpl.this.setChanged(); }
-            @Override public boolean stillValid(@Nonnull Player player) { return true; }
-            @Override public void clearContent() { for (int i=0;i<handler.getSlots();i++) handler.setStackInSlot(i, ItemStack.EMPTY); setChanged(); }
-        };
+        this.slotCount = slotCount;
+    }
+    
+    /**
+     * 获取（必要时创建）底层物品存储
+     */
+    private ItemStackHandler handler() {
+        ItemStackHandler h = handler;
+        if (h == null) {
+            h = new ItemStackHandler(slotCount) {
+                @Override
+                protected void onContentsChanged(int slot) {
+                    revision++;
+                }
+            };
+            handler = h;
+        }
+        return h;
     }
     
     public InventoryComponentImpl(int slotCount, String slotType) {
@@ -71,7 +67,21 @@ public class InventoryComponentImpl implements IInventoryComponent {
     
     @Override
     public void setActive(boolean active) {
-        this.active = active;
+        if (this.active != active) {
+            this.active = active;
+            revision++;
+        }
+    }
+    
+    @Override
+    public void setChanged() {
+        // 物品可能被原地修改（grow/shrink），无法通过 handler 感知，这里统一视为变化
+        revision++;
+    }
+    
+    @Override
+    public int getRevision() {
+        return revision;
     }
     
     @Override
@@ -103,17 +113,80 @@ public class InventoryComponentImpl implements IInventoryComponent {
     
     @Override
     public Container getContainer() {
+        if (container == null) {
+            container = createContainer();
+        }
         return container;
     }
     
+    /**
+     * 完整委托Container，避免SimpleContainer内部数组与handler不同步导致的显示/提取问题
+     *
+     * 读取和从空槽位取出不创建handler（尚未创建即视为全空），只有写入时才创建
+     */
+    private Container createContainer() {
+        return new net.minecraft.world.Container() {
+            @Override public int getContainerSize() { return slotCount; }
+            @Override public boolean isEmpty() { return InventoryComponentImpl.this.isEmpty(); }
+            @Override @Nonnull public ItemStack getItem(int slot) {
+                ItemStackHandler handler = InventoryComponentImpl.this.handler;
+                return handler == null ? ItemStack.EMPTY : handler.getStackInSlot(slot);
+            }
+            @Override @Nonnull public ItemStack removeItem(int slot, int count) {
+                ItemStackHandler handler = InventoryComponentImpl.this.handler;
+                if (handler == null) return ItemStack.EMPTY;
+                ItemStack current = handler.getStackInSlot(slot);
+                if (current.isEmpty() || count <= 0) return ItemStack.EMPTY;
+                int toExtract = Math.min(count, current.getCount());
+                ItemStack result = current.copy(); result.setCount(toExtract);
+                current.shrink(toExtract);
+                if (current.getCount() <= 0) handler.setStackInSlot(slot, ItemStack.EMPTY); else handler.setStackInSlot(slot, current);
+                setChanged();
+                return result;
+            }
+            @Override @Nonnull public ItemStack removeItemNoUpdate(int slot) {
+                ItemStackHandler handler = InventoryComponentImpl.this.handler;
+                if (handler == null) return ItemStack.EMPTY;
+                ItemStack current = handler.getStackInSlot(slot);
+                if (current.isEmpty()) return ItemStack.EMPTY;
+                handler.setStackInSlot(slot, ItemStack.EMPTY);
+                return current;
+            }
+            @Override public void setItem(int slot, @Nonnull ItemStack stack) {
+                if (InventoryComponentImpl.this.handler == null && stack.isEmpty()) return; // 向空存储写入空物品无需创建
+                handler().setStackInSlot(slot, stack);
+                setChanged();
+            }
+            @Override public void setChanged() { InventoryComponentImpl.this.setChanged(); }
+            @Override public boolean stillValid(@Nonnull Player player) { return true; }
+            @Override public void clearContent() { InventoryComponentImpl.this.clearContent(); }
+        };
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        ItemStackHandler h = handler;
+        if (h == null) return true;
+        for (int i = 0; i < h.getSlots(); i++) if (!h.getStackInSlot(i).isEmpty()) return false;
+        return true;
+    }
+    
+    @Override
+    public void clearContent() {
+        ItemStackHandler h = handler;
+        if (h == null) return;
+        for (int i = 0; i < h.getSlots(); i++) h.setStackInSlot(i, ItemStack.EMPTY);
+        setChanged();
+    }
+    
     @Override
     public int getContainerSize() {
-        return handler.getSlots();
+        return slotCount;
     }
     
     @Override
     public int getSlotCount() {
-        return handler.getSlots();
+        return slotCount;
     }
     
     @Override
@@ -123,6 +196,9 @@ public class InventoryComponentImpl implements IInventoryComponent {
                                    slot, getSlotCount() - 1);
             return ItemStack.EMPTY;
         }
+        if (handler == null) {
+            return ItemStack.EMPTY;
+        }
         try {
             return handler.getStackInSlot(slot);
         } catch (Exception e) {
@@ -142,8 +218,11 @@ public class InventoryComponentImpl implements IInventoryComponent {
             ArsenalGraft.LOGGER.warn("[InventoryComponent] 尝试设置null物品到槽位: {}", slot);
             stack = ItemStack.EMPTY;
         }
+        if (handler == null && stack.isEmpty()) {
+            return; // 空存储中放入空物品，无需分配
+        }
         try {
-            handler.setStackInSlot(slot, stack);
+            handler().setStackInSlot(slot, stack);
             if (ArsenalGraft.LOGGER.isDebugEnabled()) {
                 ArsenalGraft.LOGGER.debug("[InventoryComponent] setItem slot={} stack={} count={}", slot, stack.getItem(), stack.getCount());
             }
@@ -154,7 +233,7 @@ public class InventoryComponentImpl implements IInventoryComponent {
     
     @Override
     public boolean isItemValid(int slot, ItemStack stack) {
-        return handler.isItemValid(slot, stack);
+        return handler == null || handler.isItemValid(slot, stack);
     }
     
     @Override
@@ -165,6 +244,7 @@ public class InventoryComponentImpl implements IInventoryComponent {
     @Override
     public void setSlotType(String slotType) {
         this.slotType = slotType;
+        revision++;
     }
     
     @Override
@@ -179,13 +259,16 @@ public class InventoryComponentImpl implements IInventoryComponent {
     
     @Override
     public int getSlotLimit(int slot) {
-        return handler.getSlotLimit(slot);
+        return handler == null ? Item.MAX_STACK_SIZE : handler.getSlotLimit(slot);
     }
     
     @Override
     public IInventoryComponent copy() {
         InventoryComponentImpl copy = new InventoryComponentImpl(getSlotCount(), slotType);
         copy.active = this.active;
+        if (handler == null) {
+            return copy; // 空存储：副本同样延迟分配
+        }
         
         // 复制物品（创建新的ItemStack实例）
         for (int i = 0; i < getSlotCount(); i++) {
@@ -201,7 +284,15 @@ public class InventoryComponentImpl implements IInventoryComponent {
     @Override
     public CompoundTag serializeNBT() {
         CompoundTag tag = new CompoundTag();
-        tag.put("inventory", handler.serializeNBT());
+        if (handler != null) {
+            tag.put("inventory", handler.serializeNBT());
+        } else {
+            // 与 ItemStackHandler.serializeNBT 格式一致的空存储
+            CompoundTag inventory = new CompoundTag();
+            inventory.put("Items", new ListTag());
+            inventory.putInt("Size", slotCount);
+            tag.put("inventory", inventory);
+        }
         tag.putString("slotType", slotType);
         tag.putBoolean("active", active);
         return tag;
@@ -210,17 +301,29 @@ public class InventoryComponentImpl implements IInventoryComponent {
     @Override
     public void deserializeNBT(CompoundTag nbt) {
         if (nbt.contains("inventory")) {
-            handler.deserializeNBT(nbt.getCompound("inventory"));
+            CompoundTag inventory = nbt.getCompound("inventory");
+            if (inventory.contains("Size", Tag.TAG_INT)) {
+                slotCount = inventory.getInt("Size");
+            }
+            if (inventory.getList("Items", Tag.TAG_COMPOUND).isEmpty()) {
+                handler = null; // 没有物品，保持延迟分配
+            } else {
+                if (handler != null && handler.getSlots() != slotCount) {
+                    handler = null;
+                }
+                handler().deserializeNBT(inventory);
+            }
         }
         
         this.slotType = nbt.getString("slotType");
         this.active = nbt.getBoolean("active");
+        revision++;
     }
     
     /**
-     * 获取底层的ItemStackHandler（用于兼容现有代码）
+     * 获取底层的ItemStackHandler（用于兼容现有代码，调用时才分配存储）
      */
     public ItemStackHandler getHandler() {
-        return handler;
+        return handler();
     }
 }
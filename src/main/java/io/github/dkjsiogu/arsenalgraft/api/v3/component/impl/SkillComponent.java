@@ -5,48 +5,62 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.world.entity.player.Player;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
  * 技能组件
  * 
  * 提供特殊技能和能力，如双重跳跃、冲刺、隐身等
+ * 
+ * 技能表由所有实例共享（默认技能是无状态的静态函数，冷却记录在各自实例上），
+ * 增删技能时才复制一份；技能数据和冷却记录在第一次写入时才分配。
  */
 public class SkillComponent implements IModificationComponent {
     
     private static final String COMPONENT_TYPE = "skill";
     
+    // 默认技能（所有实例共享）
+    private static final Map<String, BiConsumer<SkillComponent, Player>> DEFAULT_SKILLS = createDefaultSkills();
+    
     private boolean active = false;
-    private final Map<String, Object> skillData = new HashMap<>();
-    private final Map<String, Consumer<Player>> skills = new HashMap<>();
+    // 未写入前为共享的空映射，第一次写入时分配
+    private Map<String, Object> skillData = Map.of();
+    // 技能表（写时复制），skillsShared 为 true 时可能被其他实例引用，不能原地修改
+    private Map<String, BiConsumer<SkillComponent, Player>> skills = DEFAULT_SKILLS;
+    private boolean skillsShared = true;
     
-    // 技能冷却时间管理
-    private final Map<String, Long> cooldowns = new HashMap<>();
+    // 技能冷却时间管理（第一次进入冷却时分配）
+    private Map<String, Long> cooldowns = Map.of();
     
-    public SkillComponent() {
-        initializeDefaultSkills();
-    }
+    // 状态版本号，技能数据或冷却变化时递增
+    private int revision;
+    
+    public SkillComponent() {}
     
     /**
      * 初始化默认技能
      */
-    private void initializeDefaultSkills() {
+    private static Map<String, BiConsumer<SkillComponent, Player>> createDefaultSkills() {
+        Map<String, BiConsumer<SkillComponent, Player>> defaults = new HashMap<>();
+        
         // 双重跳跃技能
-        skills.put("double_jump", player -> {
-            if (canUseSkill("double_jump", 1000)) { // 1秒冷却
+        defaults.put("double_jump", (self, player) -> {
+            if (self.canUseSkill("double_jump", 1000)) { // 1秒冷却
                 // 给予向上的速度
                 player.setDeltaMovement(player.getDeltaMovement().add(0, 0.5, 0));
                 player.hasImpulse = true;
-                setCooldown("double_jump");
+                self.setCooldown("double_jump");
                 System.out.println("[SkillComponent] " + player.getName().getString() + " 使用了双重跳跃");
             }
         });
         
         // 快速冲刺技能
-        skills.put("dash", player -> {
-            if (canUseSkill("dash", 3000)) { // 3秒冷却
+        defaults.put("dash", (self, player) -> {
+            if (self.canUseSkill("dash", 3000)) { // 3秒冷却
                 // 在玩家面向的方向上给予推进力
                 double speed = 1.5;
                 double yaw = Math.toRadians(player.getYRot());
@@ -55,37 +69,65 @@ public class SkillComponent implements IModificationComponent {
                 
                 player.setDeltaMovement(player.getDeltaMovement().add(dx, 0, dz));
                 player.hasImpulse = true;
-                setCooldown("dash");
+                self.setCooldown("dash");
                 System.out.println("[SkillComponent] " + player.getName().getString() + " 使用了冲刺");
             }
         });
         
         // 临时隐身技能
-        skills.put("stealth", player -> {
-            if (canUseSkill("stealth", 30000)) { // 30秒冷却
+        defaults.put("stealth", (self, player) -> {
+            if (self.canUseSkill("stealth", 30000)) { // 30秒冷却
                 // 给予隐身效果
                 player.setInvisible(true);
                 // 5秒后移除隐身
                 // 注意：在实际实现中，你需要使用适当的调度器
                 System.out.println("[SkillComponent] " + player.getName().getString() + " 使用了隐身");
-                setCooldown("stealth");
+                self.setCooldown("stealth");
             }
         });
+        return Collections.unmodifiableMap(defaults);
     }
     
     /**
      * 添加自定义技能
      */
     public void addSkill(String skillName, Consumer<Player> skillAction) {
-        skills.put(skillName, skillAction);
+        mutableSkills().put(skillName, (self, player) -> skillAction.accept(player));
     }
     
     /**
      * 移除技能
      */
     public void removeSkill(String skillName) {
-        skills.remove(skillName);
-        cooldowns.remove(skillName);
+        if (skills.containsKey(skillName)) {
+            mutableSkills().remove(skillName);
+        }
+        if (cooldowns.containsKey(skillName)) {
+            mutableCooldowns().remove(skillName);
+            revision++;
+        }
+    }
+    
+    private Map<String, BiConsumer<SkillComponent, Player>> mutableSkills() {
+        if (skillsShared) {
+            skills = new HashMap<>(skills);
+            skillsShared = false;
+        }
+        return skills;
+    }
+    
+    private Map<String, Long> mutableCooldowns() {
+        if (!(cooldowns instanceof HashMap)) {
+            cooldowns = new HashMap<>();
+        }
+        return cooldowns;
+    }
+    
+    private Map<String, Object> mutableSkillData() {
+        if (!(skillData instanceof HashMap)) {
+            skillData = new HashMap<>();
+        }
+        return skillData;
     }
     
     /**
@@ -94,9 +136,9 @@ public class SkillComponent implements IModificationComponent {
     public void useSkill(String skillName, Player player) {
         if (!active) return;
         
-        Consumer<Player> skill = skills.get(skillName);
+        BiConsumer<SkillComponent, Player> skill = skills.get(skillName);
         if (skill != null) {
-            skill.accept(player);
+            skill.accept(this, player);
         }
     }
     
@@ -136,7 +178,8 @@ public class SkillComponent implements IModificationComponent {
      * 设置技能冷却
      */
     private void setCooldown(String skillName) {
-        cooldowns.put(skillName, System.currentTimeMillis());
+        mutableCooldowns().put(skillName, System.currentTimeMillis());
+        revision++;
     }
     
     /**
@@ -154,7 +197,8 @@ public class SkillComponent implements IModificationComponent {
      * 设置技能数据
      */
     public void setSkillData(String key, Object value) {
-        skillData.put(key, value);
+        mutableSkillData().put(key, value);
+        revision++;
     }
     
     /**
@@ -181,7 +225,15 @@ public class SkillComponent implements IModificationComponent {
     
     @Override
     public void setActive(boolean active) {
-        this.active = active;
+        if (this.active != active) {
+            this.active = active;
+            revision++;
+        }
+    }
+    
+    @Override
+    public int getRevision() {
+        return revision;
     }
     
     @Override
@@ -194,7 +246,10 @@ public class SkillComponent implements IModificationComponent {
     public void onUninstall(Player player) {
         System.out.println("[SkillComponent] 为 " + player.getName().getString() + " 卸载技能组件");
         // 清理所有冷却时间
-        cooldowns.clear();
+        if (!cooldowns.isEmpty()) {
+            cooldowns = Map.of();
+            revision++;
+        }
     }
     
     @Override
@@ -209,8 +264,13 @@ public class SkillComponent implements IModificationComponent {
     public IModificationComponent copy() {
         SkillComponent copy = new SkillComponent();
         copy.active = this.active;
-        copy.skillData.putAll(this.skillData);
-        // 注意：技能函数本身不会被复制，因为它们是在构造函数中初始化的
+        if (!this.skillData.isEmpty()) {
+            copy.skillData = new HashMap<>(this.skillData);
+        }
+        // 技能表共享，任一方增删技能时再复制
+        copy.skills = this.skills;
+        copy.skillsShared = true;
+        this.skillsShared = true;
         return copy;
     }
     
@@ -249,23 +309,24 @@ public class SkillComponent implements IModificationComponent {
     @Override
     public void deserializeNBT(CompoundTag tag) {
         this.active = tag.getBoolean("active");
+        revision++;
         
         // 反序列化技能数据
         if (tag.contains("skillData")) {
             CompoundTag dataTag = tag.getCompound("skillData");
-            skillData.clear();
+            skillData = Map.of();
             
             for (String key : dataTag.getAllKeys()) {
                 Tag valueTag = dataTag.get(key);
                 // 根据标签类型恢复数据
                 if (valueTag instanceof net.minecraft.nbt.StringTag) {
-                    skillData.put(key, dataTag.getString(key));
+                    mutableSkillData().put(key, dataTag.getString(key));
                 } else if (valueTag instanceof net.minecraft.nbt.IntTag) {
-                    skillData.put(key, dataTag.getInt(key));
+                    mutableSkillData().put(key, dataTag.getInt(key));
                 } else if (valueTag instanceof net.minecraft.nbt.DoubleTag) {
-                    skillData.put(key, dataTag.getDouble(key));
+                    mutableSkillData().put(key, dataTag.getDouble(key));
                 } else if (valueTag instanceof net.minecraft.nbt.ByteTag) {
-                    skillData.put(key, dataTag.getBoolean(key));
+                    mutableSkillData().put(key, dataTag.getBoolean(key));
                 }
             }
         }
@@ -273,10 +334,10 @@ public class SkillComponent implements IModificationComponent {
         // 反序列化冷却时间
         if (tag.contains("cooldowns")) {
             CompoundTag cooldownTag = tag.getCompound("cooldowns");
-            cooldowns.clear();
+            cooldowns = Map.of();
             
             for (String key : cooldownTag.getAllKeys()) {
-                cooldowns.put(key, cooldownTag.getLong(key));
+                mutableCooldowns().put(key, cooldownTag.getLong(key));
             }
         }
     }
@@ -1,13 +1,16 @@
 package io.github.dkjsiogu.arsenalgraft.api.v3.kubejs;
 
+import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
 import io.github.dkjsiogu.arsenalgraft.api.v3.ArsenalGraftAPI;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationTemplate;
 import io.github.dkjsiogu.arsenalgraft.api.v3.component.impl.InventoryComponentImpl;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * KubeJS集成API
@@ -18,6 +21,36 @@ import java.util.ArrayList;
  */
 public class ArsenalGraftKubeJSAPI {
     
+    // 当前线程上进行中的批量注册（脚本在单线程上执行）
+    private static final ThreadLocal<Map<ResourceLocation, ModificationTemplate>> currentBatch = new ThreadLocal<>();
+    
+    /**
+     * 批量注册：回调中调用的 register() 只收集模板，回调结束后一次性发布到注册表
+     * 
+     * 回调抛出异常时整批放弃，注册表保持不变；嵌套调用并入最外层的批次。
+     * 
+     * JavaScript示例:
+     * ArsenalGraft.batch(() => {
+     *     ArsenalGraft.createModification('my_pack:arm_a').slotType('arm').register();
+     *     ArsenalGraft.createModification('my_pack:arm_b').slotType('arm').register();
+     * });
+     */
+    public static void batch(Runnable fn) {
+        if (currentBatch.get() != null) {
+            fn.run();
+            return;
+        }
+        Map<ResourceLocation, ModificationTemplate> batch = new LinkedHashMap<>();
+        currentBatch.set(batch);
+        try {
+            fn.run();
+        } finally {
+            currentBatch.remove();
+        }
+        ArsenalGraftAPI.registerModificationTemplates(batch);
+        ArsenalGraft.LOGGER.info("[KubeJS] 批量注册改造: {}", batch.size());
+    }
+    
     /**
      * 创建改造构建器（KubeJS风格的链式调用）
      * 
@@ -123,12 +156,18 @@ public class ArsenalGraftKubeJSAPI {
         public void register() {
             try {
                 ModificationTemplate template = templateBuilder.build();
+                Map<ResourceLocation, ModificationTemplate> batch = currentBatch.get();
+                if (batch != null) {
+                    // 批量注册中，等批次结束后统一发布
+                    batch.put(id, template);
+                    return;
+                }
                 ArsenalGraftAPI.registerModificationTemplate(id, template);
                 
-                System.out.println("[KubeJS] 注册改造: " + id);
+                ArsenalGraft.LOGGER.debug("[KubeJS] 注册改造: {}", id);
                 
             } catch (Exception e) {
-                System.err.println("[KubeJS] 注册改造失败: " + id + " - " + e.getMessage());
+                ArsenalGraft.LOGGER.error("[KubeJS] 注册改造失败: {}", id, e);
                 throw new RuntimeException("Failed to register modification: " + id, e);
             }
         }
@@ -3,18 +3,15 @@ package io.github.dkjsiogu.arsenalgraft.api.v3.loader;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import io.github.dkjsiogu.arsenalgraft.api.v3.ArsenalGraftAPI;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationTemplate;
-import io.github.dkjsiogu.arsenalgraft.api.v3.component.impl.InventoryComponentImpl;
-import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
 
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.ArrayList;
 import java.util.Map;
 
 /**
@@ -23,6 +20,7 @@ import java.util.Map;
  * 负责从数据包中的JSON文件加载改造模板定义。
  * 这展示了"单一数据后端"的设计原则：
  * JSON和KubeJS最终都会创建相同的ModificationTemplate对象。
+ * 解析由 {@link TemplateParser} 完成，两种键名风格都可以使用。
  */
 public class JsonModificationLoader {
     
@@ -58,15 +56,12 @@ public class JsonModificationLoader {
                     filename
                 );
                 
-                // 读取JSON内容
-                JsonObject jsonObject;
-                try (InputStreamReader reader = new InputStreamReader(resource.open())) {
-                    jsonObject = JsonParser.parseReader(reader).getAsJsonObject();
+                // 流式解析为改造模板（与数据包加载器共用同一个解析器）
+                ModificationTemplate template;
+                try (InputStreamReader reader = new InputStreamReader(resource.open(), StandardCharsets.UTF_8)) {
+                    template = TemplateParser.parse(modificationId, reader);
                 }
                 
-                // 解析为改造模板
-                ModificationTemplate template = parseModificationTemplate(modificationId, jsonObject);
-                
                 // 注册到系统
                 ArsenalGraftAPI.registerModificationTemplate(modificationId, template);
                 
@@ -83,69 +78,6 @@ public class JsonModificationLoader {
         System.out.println("[JsonModificationLoader] 加载完成。成功: " + loadedCount + ", 失败: " + errorCount);
     }
     
-    /**
-     * 解析JSON对象为改造模板
-     */
-    private static ModificationTemplate parseModificationTemplate(ResourceLocation id, JsonObject json) {
-        ModificationTemplate.Builder builder = new ModificationTemplate.Builder(id);
-        
-        // 解析基本信息
-        if (json.has("display_name")) {
-            Component displayName = Component.literal(json.get("display_name").getAsString());
-            builder.displayName(displayName);
-        } else {
-            throw new IllegalArgumentException("Missing required field: display_name");
-        }
-        
-        if (json.has("description")) {
-            List<Component> description = new ArrayList<>();
-            if (json.get("description").isJsonArray()) {
-                json.getAsJsonArray("description").forEach(element -> {
-                    description.add(Component.literal(element.getAsString()));
-                });
-            } else {
-                description.add(Component.literal(json.get("description").getAsString()));
-            }
-            builder.description(description);
-        }
-        
-        if (json.has("slot_type")) {
-            builder.slotType(json.get("slot_type").getAsString());
-        }
-        
-        if (json.has("max_install_count")) {
-            builder.maxInstallCount(json.get("max_install_count").getAsInt());
-        }
-        
-        if (json.has("has_configuration")) {
-            builder.hasConfiguration(json.get("has_configuration").getAsBoolean());
-        }
-        
-        // 解析组件
-        if (json.has("components")) {
-            JsonObject components = json.getAsJsonObject("components");
-            
-            // 解析物品栏组件
-            if (components.has("inventory")) {
-                JsonObject inventoryConfig = components.getAsJsonObject("inventory");
-                
-                int slotCount = inventoryConfig.has("slot_count") ? 
-                    inventoryConfig.get("slot_count").getAsInt() : 1;
-                    
-                String slotType = inventoryConfig.has("slot_type") ? 
-                    inventoryConfig.get("slot_type").getAsString() : "default";
-                
-                InventoryComponentImpl inventoryComponent = new InventoryComponentImpl(slotCount, slotType);
-                builder.addComponent("inventory", inventoryComponent);
-            }
-            
-            // 可以在这里添加更多组件类型的解析
-            // 如: attribute, effect, automation 等
-        }
-        
-        return builder.build();
-    }
-    
     /**
      * 创建示例JSON文件内容
      */
@@ -0,0 +1,235 @@
+package io.github.dkjsiogu.arsenalgraft.api.v3.loader;
+
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.github.dkjsiogu.arsenalgraft.api.v3.component.IModificationComponent;
+import io.github.dkjsiogu.arsenalgraft.api.v3.component.impl.AttributeComponent;
+import io.github.dkjsiogu.arsenalgraft.api.v3.component.impl.EffectComponent;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ComponentFactory;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationTemplate;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 改造模板解析器
+ *
+ * 数据包加载、KubeJS 和旧的 {@link JsonModificationLoader} 共用的唯一模板解析入口。
+ * 基于 Gson 的流式 {@link JsonReader}，边读边构建模板，不生成中间的 JSON 树或属性映射。
+ *
+ * 同时接受两种键名风格：
+ * <pre>
+ *   name / display_name            显示名称（缺省为模板ID的路径）
+ *   description                    字符串或字符串数组
+ *   slotType / slot_type           槽位类型
+ *   maxInstances / max_install_count
+ *   hasConfiguration / has_configuration
+ *   components.inventory:   size / slot_count, slotType / slot_type（缺省为模板的槽位类型）
+ *   components.attribute:   attributes { 属性名: 数值 }
+ *   components.skill:       skillId / skill_id, cooldown, manaCost / mana_cost
+ *   components.effect:      暂无配置项
+ * </pre>
+ * 未知的键会被跳过。
+ */
+public final class TemplateParser {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    // 未指定时的物品栏大小
+    private static final int DEFAULT_INVENTORY_SIZE = 27;
+
+    // 组件键 -> 读取方式和空白组件工厂；解析 JSON 和还原模板缓存共用这一张表
+    private static final Map<String, ComponentType> COMPONENT_TYPES = Map.of(
+        "inventory", new ComponentType(TemplateParser::readInventory, () -> ComponentFactory.createInventoryComponent(Map.of())),
+        "attribute", new ComponentType(TemplateParser::readAttribute, () -> ComponentFactory.createAttributeComponent(Map.of())),
+        "skill", new ComponentType(TemplateParser::readSkill, () -> ComponentFactory.createSkillComponent(Map.of())),
+        "effect", new ComponentType(TemplateParser::readEffect, () -> ComponentFactory.createEffectComponent(Map.of()))
+    );
+
+    private TemplateParser() {}
+
+    /**
+     * 从字符流解析模板
+     *
+     * @throws IOException JSON 格式错误或读取失败
+     */
+    public static ModificationTemplate parse(ResourceLocation id, Reader source) throws IOException {
+        JsonReader reader = new JsonReader(source);
+        reader.setLenient(true);
+        return readTemplate(id, reader);
+    }
+
+    /**
+     * 从已有的 JSON 树解析模板（KubeJS 等已构建好对象的调用方）
+     */
+    public static ModificationTemplate parse(ResourceLocation id, JsonElement json) throws IOException {
+        return parse(id, new StringReader(json.toString()));
+    }
+
+    /**
+     * 按组件键创建空白组件（配置随后由 NBT 恢复），未知的组件键返回null
+     */
+    @Nullable
+    public static IModificationComponent createBlankComponent(String componentKey) {
+        ComponentType type = COMPONENT_TYPES.get(componentKey);
+        return type == null ? null : type.blank().get();
+    }
+
+    private static ModificationTemplate readTemplate(ResourceLocation id, JsonReader reader) throws IOException {
+        ModificationTemplate.Builder builder = new ModificationTemplate.Builder(id);
+        builder.displayName(Component.literal(id.getPath()));
+        String slotType = null;
+        // 组件按出现顺序记录，物品栏的缺省槽位类型依赖模板槽位类型，因此在读完整个对象后再创建
+        Map<String, ComponentSpec> components = new LinkedHashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            switch (key) {
+                case "name", "display_name" -> builder.displayName(Component.literal(reader.nextString()));
+                case "description" -> builder.description(readDescription(reader));
+                case "slotType", "slot_type" -> slotType = reader.nextString();
+                case "maxInstances", "max_install_count" -> builder.maxInstallCount(reader.nextInt());
+                case "hasConfiguration", "has_configuration" -> builder.hasConfiguration(reader.nextBoolean());
+                case "components" -> readComponents(id, reader, components);
+                default -> reader.skipValue(); // requirements 等尚未支持的字段
+            }
+        }
+        reader.endObject();
+
+        if (slotType != null) {
+            builder.slotType(slotType);
+        }
+        for (Map.Entry<String, ComponentSpec> entry : components.entrySet()) {
+            IModificationComponent component = entry.getValue().create(slotType);
+            if (component != null) {
+                builder.addComponent(entry.getKey(), component);
+            }
+        }
+        return builder.build();
+    }
+
+    private static List<Component> readDescription(JsonReader reader) throws IOException {
+        List<Component> description = new ArrayList<>();
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                description.add(Component.literal(reader.nextString()));
+            }
+            reader.endArray();
+        } else {
+            description.add(Component.literal(reader.nextString()));
+        }
+        return description;
+    }
+
+    private static void readComponents(ResourceLocation id, JsonReader reader, Map<String, ComponentSpec> out) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String componentType = reader.nextName();
+            ComponentType type = COMPONENT_TYPES.get(componentType);
+            if (type == null) {
+                LOGGER.warn("未知的组件类型: {} in template: {}", componentType, id);
+                reader.skipValue();
+                continue;
+            }
+            out.put(componentType, type.reader().read(reader));
+        }
+        reader.endObject();
+    }
+
+    private static ComponentSpec readInventory(JsonReader reader) throws IOException {
+        int size = DEFAULT_INVENTORY_SIZE;
+        String slotType = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "size", "slot_count" -> size = reader.nextInt();
+                case "slotType", "slot_type" -> slotType = reader.nextString();
+                default -> reader.skipValue(); // allowedItems 等尚未支持的字段
+            }
+        }
+        reader.endObject();
+        int finalSize = size;
+        String finalSlotType = slotType;
+        return templateSlotType -> ComponentFactory.createInventoryComponent(finalSize,
+            finalSlotType != null ? finalSlotType : templateSlotType);
+    }
+
+    private static ComponentSpec readAttribute(JsonReader reader) throws IOException {
+        Map<String, Double> attributes = new HashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("attributes")) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    attributes.put(reader.nextName(), reader.nextDouble());
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return templateSlotType -> new AttributeComponent(attributes);
+    }
+
+    private static ComponentSpec readSkill(JsonReader reader) throws IOException {
+        String skillId = null;
+        int cooldown = 60;
+        int manaCost = 10;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "skillId", "skill_id" -> skillId = reader.nextString();
+                case "cooldown" -> cooldown = reader.nextInt();
+                case "manaCost", "mana_cost" -> manaCost = reader.nextInt();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        String finalSkillId = skillId;
+        int finalCooldown = cooldown;
+        int finalManaCost = manaCost;
+        return templateSlotType -> ComponentFactory.createSkillComponent(finalSkillId, finalCooldown, finalManaCost);
+    }
+
+    private static ComponentSpec readEffect(JsonReader reader) throws IOException {
+        reader.skipValue(); // 效果配置暂未支持
+        return templateSlotType -> new EffectComponent();
+    }
+
+    /**
+     * 读取完成后创建组件（参数为模板的槽位类型，可能为null）
+     */
+    @FunctionalInterface
+    private interface ComponentSpec {
+        IModificationComponent create(String templateSlotType);
+    }
+
+    /**
+     * 读取组件的 JSON 配置
+     */
+    @FunctionalInterface
+    private interface ComponentReader {
+        ComponentSpec read(JsonReader reader) throws IOException;
+    }
+
+    /**
+     * 一种组件：JSON 读取方式，以及模板缓存还原时使用的空白组件工厂
+     */
+    private record ComponentType(ComponentReader reader, Supplier<IModificationComponent> blank) {}
+}
@@ -45,26 +45,9 @@ public class ComponentFactory {
                 return createDefaultInventoryComponent();
             }
             
-            // 安全提取size
-            int size = extractSafeInteger(props, "size", DEFAULT_INVENTORY_SIZE);
-            if (size <= 0) {
-                LOGGER.warn("无效的库存大小: {}，使用默认值: {}", size, DEFAULT_INVENTORY_SIZE);
-                size = DEFAULT_INVENTORY_SIZE;
-            } else if (size > MAX_INVENTORY_SIZE) {
-                LOGGER.warn("库存大小过大: {}，限制为: {}", size, MAX_INVENTORY_SIZE);
-                size = MAX_INVENTORY_SIZE;
-            }
-            
-            // 安全提取slotType
-            String slotType = extractSafeString(props, "slotType", DEFAULT_SLOT_TYPE);
-            if (slotType.trim().isEmpty()) {
-                LOGGER.warn("槽位类型为空，使用默认值: {}", DEFAULT_SLOT_TYPE);
-                slotType = DEFAULT_SLOT_TYPE;
-            }
-            
-            IModificationComponent component = new InventoryComponentImpl(size, slotType);
-            LOGGER.debug("成功创建物品栏组件: size={}, slotType={}", size, slotType);
-            return component;
+            return createInventoryComponent(
+                extractSafeInteger(props, "size", DEFAULT_INVENTORY_SIZE),
+                extractSafeString(props, "slotType", DEFAULT_SLOT_TYPE));
             
         } catch (ClassCastException e) {
             LOGGER.error("物品栏组件属性类型错误: {}", props, e);
@@ -75,6 +58,28 @@ public class ComponentFactory {
         }
     }
     
+    /**
+     * 按已解析的配置创建物品栏组件（校验大小和槽位类型）
+     */
+    public static IModificationComponent createInventoryComponent(int size, @Nullable String slotType) {
+        if (size <= 0) {
+            LOGGER.warn("无效的库存大小: {}，使用默认值: {}", size, DEFAULT_INVENTORY_SIZE);
+            size = DEFAULT_INVENTORY_SIZE;
+        } else if (size > MAX_INVENTORY_SIZE) {
+            LOGGER.warn("库存大小过大: {}，限制为: {}", size, MAX_INVENTORY_SIZE);
+            size = MAX_INVENTORY_SIZE;
+        }
+        
+        if (slotType == null || slotType.trim().isEmpty()) {
+            LOGGER.warn("槽位类型为空，使用默认值: {}", DEFAULT_SLOT_TYPE);
+            slotType = DEFAULT_SLOT_TYPE;
+        }
+        
+        IModificationComponent component = new InventoryComponentImpl(size, slotType);
+        LOGGER.debug("成功创建物品栏组件: size={}, slotType={}", size, slotType);
+        return component;
+    }
+    
     /**
      * 创建属性组件（带完整错误处理）
      * 
@@ -123,37 +128,18 @@ public class ComponentFactory {
     @Nullable
     public static IModificationComponent createSkillComponent(@Nullable Map<String, Object> props) {
         try {
-            SkillComponent skillComponent = new SkillComponent();
-            
             if (props == null) {
                 LOGGER.warn("技能组件属性为null，使用默认设置");
+                SkillComponent skillComponent = new SkillComponent();
                 setupDefaultSkill(skillComponent);
                 return skillComponent;
             }
             
             // 安全设置技能数据
-            String skillId = extractSafeString(props, "skillId", "default_skill");
-            int cooldown = extractSafeInteger(props, "cooldown", DEFAULT_COOLDOWN);
-            int manaCost = extractSafeInteger(props, "manaCost", DEFAULT_MANA_COST);
-            
-            // 验证数值范围
-            if (cooldown < 0) {
-                LOGGER.warn("无效的冷却时间: {}，设置为默认值: {}", cooldown, DEFAULT_COOLDOWN);
-                cooldown = DEFAULT_COOLDOWN;
-            }
-            
-            if (manaCost < 0) {
-                LOGGER.warn("无效的魔法消耗: {}，设置为默认值: {}", manaCost, DEFAULT_MANA_COST);
-                manaCost = DEFAULT_MANA_COST;
-            }
-            
-            skillComponent.setSkillData("skillId", skillId);
-            skillComponent.setSkillData("cooldown", cooldown);
-            skillComponent.setSkillData("manaCost", manaCost);
-            
-            LOGGER.debug("成功创建技能组件: skillId={}, cooldown={}, manaCost={}", 
-                        skillId, cooldown, manaCost);
-            return skillComponent;
+            return createSkillComponent(
+                extractSafeString(props, "skillId", "default_skill"),
+                extractSafeInteger(props, "cooldown", DEFAULT_COOLDOWN),
+                extractSafeInteger(props, "manaCost", DEFAULT_MANA_COST));
             
         } catch (Exception e) {
             LOGGER.error("创建技能组件失败", e);
@@ -164,6 +150,35 @@ public class ComponentFactory {
         }
     }
     
+    /**
+     * 按已解析的配置创建技能组件（校验数值范围）
+     */
+    public static IModificationComponent createSkillComponent(@Nullable String skillId, int cooldown, int manaCost) {
+        SkillComponent skillComponent = new SkillComponent();
+        if (skillId == null || skillId.isEmpty()) {
+            skillId = "default_skill";
+        }
+        
+        // 验证数值范围
+        if (cooldown < 0) {
+            LOGGER.warn("无效的冷却时间: {}，设置为默认值: {}", cooldown, DEFAULT_COOLDOWN);
+            cooldown = DEFAULT_COOLDOWN;
+        }
+        
+        if (manaCost < 0) {
+            LOGGER.warn("无效的魔法消耗: {}，设置为默认值: {}", manaCost, DEFAULT_MANA_COST);
+            manaCost = DEFAULT_MANA_COST;
+        }
+        
+        skillComponent.setSkillData("skillId", skillId);
+        skillComponent.setSkillData("cooldown", cooldown);
+        skillComponent.setSkillData("manaCost", manaCost);
+        
+        LOGGER.debug("成功创建技能组件: skillId={}, cooldown={}, manaCost={}", 
+                    skillId, cooldown, manaCost);
+        return skillComponent;
+    }
+    
     /**
      * 创建效果组件（带完整错误处理）
      * 
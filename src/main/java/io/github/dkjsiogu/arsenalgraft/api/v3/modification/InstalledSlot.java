@@ -1,10 +1,15 @@
 package io.github.dkjsiogu.arsenalgraft.api.v3.modification;
 
+import io.github.dkjsiogu.arsenalgraft.api.v3.attribute.AttributeAggregator;
+import io.github.dkjsiogu.arsenalgraft.api.v3.attribute.AttributeContributor;
 import io.github.dkjsiogu.arsenalgraft.api.v3.component.IModificationComponent;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
 import net.minecraft.world.entity.player.Player;
 import net.minecraftforge.common.util.INBTSerializable;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -13,14 +18,30 @@ import java.util.UUID;
  * 
  * 代表玩家身上一个已经安装的改造插槽实例。
  * 它包含了从模板复制的组件，以及运行时的状态数据。
+ * 
+ * 序列化结果按组件缓存：组件通过 {@link IModificationComponent#getRevision()} 报告变化，
+ * 未变化的组件直接复用上一次的标签；所有组件都未变化时整个插槽标签原样复用。
+ * 
+ * 从持久化数据加载的插槽是延迟水合的：构造时只解析插槽头（slotId、模板、安装状态），
+ * 各组件的NBT在第一次访问该组件时才复制模板原型并反序列化；
+ * 尚未水合的组件在序列化时直接写回原始标签。
  */
 public class InstalledSlot implements INBTSerializable<CompoundTag> {
     
     private final UUID slotId;
-    private final ModificationTemplate template;
+    // 数据包重载时可被重新绑定到新的模板对象
+    private volatile ModificationTemplate template;
     private final Map<String, IModificationComponent> components;
     private boolean installed;
     
+    // 尚未水合的组件原始标签（组件键 -> NBT），全部水合后为null
+    private volatile Map<String, CompoundTag> pendingComponents;
+    
+    // 序列化缓存（组件键 -> 上次的组件标签），以及整个插槽的标签
+    private final Map<String, CachedComponentTag> componentTagCache = new HashMap<>();
+    private CompoundTag cachedTag;
+    private boolean cachedInstalled;
+    
     public InstalledSlot(ModificationTemplate template) {
         this.slotId = UUID.randomUUID();
         this.template = template;
@@ -33,6 +54,31 @@ public class InstalledSlot implements INBTSerializable<CompoundTag> {
         }
     }
     
+    /**
+     * 从持久化数据延迟加载的构造函数
+     * 
+     * 只解析插槽头，组件在第一次访问时才从 slotTag 中的原始标签水合。
+     * 模板中存在但数据中没有的组件直接复制模板原型。
+     * slotTag 可以是持久化缓存中的共享实例：这里只读取，原始标签也只会原样写回。
+     */
+    public InstalledSlot(UUID slotId, ModificationTemplate template, CompoundTag slotTag) {
+        this.slotId = slotId;
+        this.template = template;
+        this.installed = slotTag.getBoolean("installed");
+        this.components = new HashMap<>();
+        
+        CompoundTag componentsTag = slotTag.getCompound("components");
+        Map<String, CompoundTag> pending = new HashMap<>();
+        for (Map.Entry<String, IModificationComponent> entry : template.getComponents().entrySet()) {
+            if (componentsTag.contains(entry.getKey(), Tag.TAG_COMPOUND)) {
+                pending.put(entry.getKey(), componentsTag.getCompound(entry.getKey()));
+            } else {
+                this.components.put(entry.getKey(), entry.getValue().copy());
+            }
+        }
+        this.pendingComponents = pending.isEmpty() ? null : pending;
+    }
+    
     /**
      * 从NBT加载的构造函数
      */
@@ -58,18 +104,73 @@ public class InstalledSlot implements INBTSerializable<CompoundTag> {
     }
     
     /**
-     * 获取所有组件
+     * 重新绑定到新的模板对象（数据包重载后模板内容变化时）
+     * 
+     * 新旧模板都有的组件保留当前实例及其状态（与从存档加载时一样，组件配置随组件状态保存）；
+     * 新模板去掉的组件被移除（已安装时先执行卸载回调）；新模板新增的组件复制原型（已安装时执行安装回调）。
+     * 属性加成由数据包重载后的校准统一更新。
+     * 
+     * @param newTemplate 同一ID的新模板
+     * @param owner 插槽所属玩家，未知时为null（不执行回调）
+     */
+    public synchronized void rebindTemplate(ModificationTemplate newTemplate, Player owner) {
+        if (newTemplate == template) {
+            return;
+        }
+        Map<String, IModificationComponent> prototypes = newTemplate.getComponents();
+        
+        // 移除新模板中已不存在的组件
+        for (var it = components.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, IModificationComponent> entry = it.next();
+            if (!prototypes.containsKey(entry.getKey())) {
+                if (installed && owner != null) {
+                    entry.getValue().onUninstall(owner);
+                }
+                it.remove();
+            }
+        }
+        Map<String, CompoundTag> pending = pendingComponents;
+        if (pending != null) {
+            pending.keySet().retainAll(prototypes.keySet());
+            if (pending.isEmpty()) {
+                pendingComponents = null;
+                pending = null;
+            }
+        }
+        
+        // 补充新模板新增的组件
+        for (Map.Entry<String, IModificationComponent> entry : prototypes.entrySet()) {
+            String key = entry.getKey();
+            if (components.containsKey(key) || (pending != null && pending.containsKey(key))) {
+                continue;
+            }
+            IModificationComponent component = entry.getValue().copy();
+            components.put(key, component);
+            if (installed && owner != null) {
+                component.onInstall(owner);
+            }
+        }
+        
+        template = newTemplate;
+        invalidateSerializedCache();
+    }
+    
+    /**
+     * 获取所有组件（会水合全部尚未加载的组件）
      */
     public Map<String, IModificationComponent> getComponents() {
+        if (pendingComponents != null) {
+            hydrateAll();
+        }
         return components;
     }
     
     /**
-     * 获取指定类型的组件
+     * 获取指定类型的组件（只水合该组件）
      */
     @SuppressWarnings("unchecked")
     public <T extends IModificationComponent> T getComponent(String componentType, Class<T> clazz) {
-        IModificationComponent component = components.get(componentType);
+        IModificationComponent component = pendingComponents != null ? hydrate(componentType) : components.get(componentType);
         if (clazz.isInstance(component)) {
             return (T) component;
         }
@@ -77,12 +178,59 @@ public class InstalledSlot implements INBTSerializable<CompoundTag> {
     }
     
     /**
-     * 检查是否有指定类型的组件
+     * 检查是否有指定类型的组件（不触发水合）
      */
     public boolean hasComponent(String componentType) {
+        Map<String, CompoundTag> pending = pendingComponents;
+        if (pending != null) {
+            synchronized (this) {
+                return components.containsKey(componentType) || pending.containsKey(componentType);
+            }
+        }
         return components.containsKey(componentType);
     }
     
+    /**
+     * 是否还有尚未水合的组件
+     */
+    public boolean isFullyHydrated() {
+        return pendingComponents == null;
+    }
+    
+    /**
+     * 水合单个组件：复制模板原型并反序列化原始标签。
+     * 原始标签同时作为该组件的序列化缓存，未修改的组件写回时不需要重新序列化。
+     */
+    private synchronized IModificationComponent hydrate(String key) {
+        IModificationComponent component = components.get(key);
+        Map<String, CompoundTag> pending = pendingComponents;
+        if (component != null || pending == null) {
+            return component;
+        }
+        CompoundTag raw = pending.remove(key);
+        IModificationComponent prototype = template.getComponents().get(key);
+        if (raw != null && prototype != null) {
+            component = prototype.copy();
+            component.deserializeNBT(raw);
+            components.put(key, component);
+            componentTagCache.put(key, new CachedComponentTag(component, component.getRevision(), raw));
+        }
+        if (pending.isEmpty()) {
+            pendingComponents = null;
+        }
+        return component;
+    }
+    
+    private synchronized void hydrateAll() {
+        Map<String, CompoundTag> pending = pendingComponents;
+        if (pending == null) {
+            return;
+        }
+        for (String key : new ArrayList<>(pending.keySet())) {
+            hydrate(key);
+        }
+    }
+    
     /**
      * 是否已安装
      */
@@ -107,9 +255,13 @@ public class InstalledSlot implements INBTSerializable<CompoundTag> {
         
         setInstalled(true);
         
-        // 安装所有组件
-        for (IModificationComponent component : components.values()) {
+        // 安装所有组件，属性加成登记到汇总器
+        for (Map.Entry<String, IModificationComponent> entry : getComponents().entrySet()) {
+            IModificationComponent component = entry.getValue();
             component.onInstall(player);
+            if (component instanceof AttributeContributor contributor && component.isActive()) {
+                AttributeAggregator.apply(player, new AttributeAggregator.ContributorKey(slotId, entry.getKey()), contributor);
+            }
         }
     }
     
@@ -121,8 +273,12 @@ public class InstalledSlot implements INBTSerializable<CompoundTag> {
             return;
         }
         
-        // 卸载所有组件
-        for (IModificationComponent component : components.values()) {
+        // 卸载所有组件，撤销属性加成
+        for (Map.Entry<String, IModificationComponent> entry : getComponents().entrySet()) {
+            IModificationComponent component = entry.getValue();
+            if (component instanceof AttributeContributor) {
+                AttributeAggregator.remove(player, new AttributeAggregator.ContributorKey(slotId, entry.getKey()));
+            }
             component.onUninstall(player);
         }
         
@@ -130,50 +286,133 @@ public class InstalledSlot implements INBTSerializable<CompoundTag> {
     }
     
     /**
-     * 每tick更新
+     * 是否包含需要每tick驱动的组件
+     */
+    public boolean isTickable() {
+        if (!installed) {
+            return false;
+        }
+        // 可 tick 是组件类型层面的声明，直接看模板原型，不触发水合
+        for (IModificationComponent component : template.getComponents().values()) {
+            if (component.isTickable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 每tick更新（只驱动声明了 {@link IModificationComponent#isTickable()} 的组件）
      */
     public void tick(Player player) {
         if (!installed) {
             return;
         }
         
-        for (IModificationComponent component : components.values()) {
-            if (component.isActive()) {
+        for (IModificationComponent component : getComponents().values()) {
+            if (component.isTickable() && component.isActive()) {
                 component.tick(player);
             }
         }
     }
     
+    /**
+     * 序列化插槽
+     * 
+     * 返回的标签可能是缓存的共享实例（持久化和网络同步共用），调用方只能读取，不要修改；
+     * 需要修改时请先 {@link CompoundTag#copy()}。
+     */
     @Override
-    public CompoundTag serializeNBT() {
+    public synchronized CompoundTag serializeNBT() {
+        if (isCacheValid()) {
+            return cachedTag;
+        }
+        
         CompoundTag tag = new CompoundTag();
         tag.putString("slotId", slotId.toString());
         tag.putString("templateId", template.getId().toString());
         tag.putBoolean("installed", installed);
         
-        // 序列化组件
+        // 序列化组件（未变化的组件复用缓存）
+        componentTagCache.keySet().retainAll(components.keySet());
         CompoundTag componentsTag = new CompoundTag();
         for (Map.Entry<String, IModificationComponent> entry : components.entrySet()) {
-            CompoundTag componentTag = entry.getValue().serializeNBT();
-            componentTag.putString("componentType", entry.getValue().getComponentType());
+            IModificationComponent component = entry.getValue();
+            int revision = component.getRevision();
+            CachedComponentTag cached = componentTagCache.get(entry.getKey());
+            CompoundTag componentTag;
+            if (cached != null && cached.matches(component, revision)) {
+                componentTag = cached.tag();
+            } else {
+                componentTag = component.serializeNBT();
+                componentTag.putString("componentType", component.getComponentType());
+                componentTagCache.put(entry.getKey(), new CachedComponentTag(component, revision, componentTag));
+            }
             componentsTag.put(entry.getKey(), componentTag);
         }
+        // 尚未水合的组件原样写回
+        Map<String, CompoundTag> pending = pendingComponents;
+        if (pending != null) {
+            for (Map.Entry<String, CompoundTag> entry : pending.entrySet()) {
+                componentsTag.put(entry.getKey(), entry.getValue());
+            }
+        }
         tag.put("components", componentsTag);
         
+        cachedTag = tag;
+        cachedInstalled = installed;
         return tag;
     }
     
+    /**
+     * 丢弃序列化缓存
+     * 
+     * 组件状态被以无法感知的方式修改（例如直接修改 getItem 返回的物品堆叠）后调用，
+     * 下一次序列化会重新生成所有组件标签。
+     */
+    public synchronized void invalidateSerializedCache() {
+        componentTagCache.clear();
+        cachedTag = null;
+    }
+    
+    private boolean isCacheValid() {
+        if (cachedTag == null || cachedInstalled != installed || componentTagCache.size() != components.size()) {
+            return false;
+        }
+        for (Map.Entry<String, IModificationComponent> entry : components.entrySet()) {
+            CachedComponentTag cached = componentTagCache.get(entry.getKey());
+            if (cached == null || !cached.matches(entry.getValue(), entry.getValue().getRevision())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 单个组件的序列化缓存，组件实例或版本号变化即失效；不跟踪版本的组件（版本号为负）从不命中
+     */
+    private record CachedComponentTag(IModificationComponent component, int revision, CompoundTag tag) {
+        boolean matches(IModificationComponent current, int currentRevision) {
+            return currentRevision >= 0 && component == current && revision == currentRevision;
+        }
+    }
+    
     @Override
-    public void deserializeNBT(CompoundTag nbt) {
+    public synchronized void deserializeNBT(CompoundTag nbt) {
         // 插槽的基本属性在构造时设置，这里只恢复组件状态
         if (nbt.contains("components")) {
             CompoundTag componentsTag = nbt.getCompound("components");
+            Map<String, CompoundTag> pending = pendingComponents;
             
             for (String componentKey : componentsTag.getAllKeys()) {
                 CompoundTag componentTag = componentsTag.getCompound(componentKey);
                 IModificationComponent component = components.get(componentKey);
                 if (component != null) {
                     component.deserializeNBT(componentTag);
+                } else if (pending != null && pending.containsKey(componentKey)) {
+                    // 尚未水合的组件只替换原始标签，保持延迟
+                    pending.put(componentKey, componentTag);
+                    cachedTag = null;
                 }
             }
         }
@@ -4,7 +4,10 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.player.Player;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * 改造管理器接口
@@ -22,6 +25,13 @@ public interface ModificationManager {
      */
     void registerTemplate(ResourceLocation id, ModificationTemplate template);
     
+    /**
+     * 批量注册改造模板
+     *
+     * 与逐个注册不同，整批模板合并进注册表后只发布一次，读取方不会看到只注册了一部分的注册表。
+     */
+    void registerTemplates(Map<ResourceLocation, ModificationTemplate> batch);
+    
     /**
      * 获取改造模板
      */
@@ -37,6 +47,13 @@ public interface ModificationManager {
      */
     void clearTemplates();
 
+    /**
+     * 用一组新模板整体替换当前注册表 (用于资源重载)
+     *
+     * 新注册表在调用方构建完成后一次性发布，读取方不会看到空的或只加载了一部分的注册表。
+     */
+    void replaceTemplates(Map<ResourceLocation, ModificationTemplate> newTemplates);
+
     /**
      * 是否已注册指定模板
      */
@@ -62,6 +79,39 @@ public interface ModificationManager {
      */
     boolean uninstallSlot(Player player, InstalledSlot slot);
     
+    /**
+     * 批量安装插槽（事务）
+     * 
+     * 全部安装成功后才一次性加入玩家数据；任一失败时回滚已安装的插槽并返回false。
+     */
+    default boolean installSlots(Player player, List<InstalledSlot> slots) {
+        return installSlots(player, slots, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * 批量安装插槽（事务），在玩家数据锁内校验数量限制
+     * 
+     * 总插槽数不得超过 maxSlots，每个模板的实例数（批内重复项一并计入）不得超过其最大安装数量；
+     * 校验与安装在同一把锁内完成，并发授予不会越过限制。任一不满足或安装失败时不做任何修改并返回false。
+     */
+    boolean installSlots(Player player, List<InstalledSlot> slots, int maxSlots);
+    
+    /**
+     * 批量卸载插槽（事务）
+     * 
+     * 所有插槽都必须属于该玩家；任一卸载失败时重新安装已卸载的插槽并返回false。
+     */
+    boolean uninstallSlots(Player player, List<InstalledSlot> slots);
+    
+    /**
+     * 按模板批量卸载改造（事务），在玩家数据锁内选出要卸载的实例
+     * 
+     * 列表中同一模板出现多次时依次卸载该模板的多个实例；任一模板的实例不足时不做任何修改。
+     * 
+     * @return 被卸载的插槽；失败时返回空列表
+     */
+    List<InstalledSlot> uninstallModifications(Player player, List<ResourceLocation> modificationIds);
+    
     /**
      * 卸载玩家的指定改造
      */
@@ -78,12 +128,24 @@ public interface ModificationManager {
     Optional<InstalledSlot> getInstalledSlot(Player player, ResourceLocation modificationId);
     
     /**
-     * 获取玩家的所有已安装插槽
+     * 按插槽唯一ID获取玩家的插槽
+     */
+    Optional<InstalledSlot> getSlotById(Player player, UUID slotId);
+    
+    /**
+     * 获取玩家的所有已安装插槽（不可变列表，来自当前快照）
      */
     List<InstalledSlot> getAllInstalledSlots(Player player);
     
     /**
-     * 获取指定槽位类型的已安装插槽
+     * 获取玩家当前的插槽快照
+     * 
+     * 快照不可变，安装/卸载时整体替换；可通过比较版本号判断是否发生变化。
+     */
+    SlotSnapshot getSlotSnapshot(Player player);
+    
+    /**
+     * 获取指定槽位类型的已安装插槽（不可变列表）
      */
     List<InstalledSlot> getInstalledSlotsByType(Player player, String slotType);
     
@@ -93,10 +155,50 @@ public interface ModificationManager {
     void syncToClient(net.minecraft.server.level.ServerPlayer player);
     
     /**
-     * 保存玩家数据
+     * 保存玩家数据（立即整体写入）
      */
     void savePlayerData(Player player);
     
+    /**
+     * 标记插槽内容已变化（例如库存编辑、组件状态更新），在下一次写回时持久化
+     */
+    void markSlotDirty(Player player, UUID slotId);
+    
+    /**
+     * 立即写回该玩家累积的脏插槽（登出、关闭容器等场景）
+     */
+    void flushDirty(Player player);
+    
+    /**
+     * 写回所有玩家累积的脏插槽
+     *
+     * @return 实际写入的玩家数量
+     */
+    int flushAllDirty();
+    
+    /**
+     * 玩家离开时写回并释放该玩家的插槽缓存和数据缓存
+     *
+     * 不等待写入完成：写入落盘后在主线程释放缓存。
+     */
+    void unloadPlayer(Player player);
+    
+    /**
+     * 写回并释放离线且超过空闲时间的玩家缓存
+     *
+     * 不等待写入完成：写入落盘后在主线程淘汰其中没有未写回变更的缓存。
+     *
+     * @param onlinePlayers 当前在线玩家，这些玩家的缓存始终保留
+     * @param idleMillis 离线玩家缓存的最长空闲时间
+     * @return 提交写回并等待淘汰的玩家数量
+     */
+    int evictIdlePlayers(Set<UUID> onlinePlayers, long idleMillis);
+    
+    /**
+     * 缓存统计信息（调试命令使用）
+     */
+    String getCacheStats();
+    
     /**
      * 加载玩家数据
      */
@@ -24,6 +24,9 @@ public class ModificationTemplate implements INBTSerializable<CompoundTag> {
     private final Map<String, IModificationComponent> components;
     private final int maxInstallCount;
     private final boolean hasConfiguration;
+    // 驻留的整数ID（见 TemplateIds），用于快照中的常数时间查询
+    private final int numericId;
+    private final int slotTypeId;
     
     public ModificationTemplate(ResourceLocation id, 
                               Component displayName,
@@ -39,6 +42,8 @@ public class ModificationTemplate implements INBTSerializable<CompoundTag> {
         this.components = components;
         this.maxInstallCount = maxInstallCount;
         this.hasConfiguration = hasConfiguration;
+        this.numericId = TemplateIds.intern(id);
+        this.slotTypeId = TemplateIds.internSlotType(slotType);
     }
     
     /**
@@ -48,6 +53,20 @@ public class ModificationTemplate implements INBTSerializable<CompoundTag> {
         return id;
     }
     
+    /**
+     * 获取模板的整数ID（进程内稳定，资源重载后不变）
+     */
+    public int getNumericId() {
+        return numericId;
+    }
+    
+    /**
+     * 获取槽位类型的整数ID
+     */
+    public int getSlotTypeId() {
+        return slotTypeId;
+    }
+    
     /**
      * 获取显示名称
      */
@@ -96,12 +115,21 @@ public class ModificationTemplate implements INBTSerializable<CompoundTag> {
     }
     
     /**
-     * 获取最大安装数量
+     * 获取最大安装数量（小于等于0表示不限）
      */
     public int getMaxInstallCount() {
         return maxInstallCount;
     }
     
+    /**
+     * 同一玩家安装 count 个该模板实例是否超过最大安装数量
+     * 
+     * 单个安装和批量安装共用这一处判断，"不限"只在这里定义。
+     */
+    public boolean exceedsInstallLimit(int count) {
+        return maxInstallCount > 0 && count > maxInstallCount;
+    }
+    
     /**
      * 是否有配置选项
      */
@@ -164,7 +192,8 @@ public class ModificationTemplate implements INBTSerializable<CompoundTag> {
         private Component displayName;
         private List<Component> description = List.of();
         private String slotType = "default";
-        private Map<String, IModificationComponent> components = new java.util.HashMap<>();
+        // 保持组件的声明顺序
+        private Map<String, IModificationComponent> components = new java.util.LinkedHashMap<>();
         private int maxInstallCount = 1;
         private boolean hasConfiguration = false;
         
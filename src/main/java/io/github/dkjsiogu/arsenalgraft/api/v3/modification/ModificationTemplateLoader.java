@@ -1,23 +1,31 @@
 package io.github.dkjsiogu.arsenalgraft.api.v3.modification;
 
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import io.github.dkjsiogu.arsenalgraft.api.v3.component.IModificationComponent;
+import io.github.dkjsiogu.arsenalgraft.api.v3.loader.TemplateParser;
 import io.github.dkjsiogu.arsenalgraft.core.service.ServiceRegistry;
-import net.minecraft.network.chat.Component;
+import net.minecraft.resources.FileToIdConverter;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
-import net.minecraft.server.packs.resources.SimpleJsonResourceReloadListener;
+import net.minecraft.server.packs.resources.SimplePreparableReloadListener;
 import net.minecraft.util.profiling.ProfilerFiller;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * 改造模板加载器
@@ -27,8 +35,16 @@ import java.util.Map;
  * - JSON文件和KubeJS脚本都解析成同一种内存结构
  * - KubeJS API本质上是代码形式的"JSON构建器"
  * - 两种方式调用完全一致的底层逻辑
+ * 
+ * 重载是增量的：每个模板文件按内容哈希，与上一次加载相同的文件直接沿用已注册的模板对象，
+ * 只有内容变化的文件才重新解析；已加载玩家的插槽由管理器重新绑定到变化后的模板。
+ * 
+ * 文件读取、哈希、JSON解析和组件构建都在重载的准备阶段（后台线程）中并行完成，
+ * 应用阶段（主线程）只负责一次性发布新的注册表。
+ * 
+ * 进程内第一次加载时，源文件未变化的模板直接从 {@link TemplateCache} 还原，跳过JSON解析。
  */
-public class ModificationTemplateLoader extends SimpleJsonResourceReloadListener {
+public class ModificationTemplateLoader extends SimplePreparableReloadListener<ModificationTemplateLoader.Prepared> {
     
     private static final Logger LOGGER = LogManager.getLogger();
     private static final Gson GSON = new GsonBuilder()
@@ -36,222 +52,156 @@ public class ModificationTemplateLoader extends SimpleJsonResourceReloadListener
             .disableHtmlEscaping()
             .create();
     
-    public ModificationTemplateLoader() {
-        super(GSON, "modifications"); // data/arsenalgraft/modifications/*.json
-    }
+    // data/*/modifications/*.json
+    private static final FileToIdConverter LISTER = FileToIdConverter.json("modifications");
+    
+    // 模板解析线程池（守护线程，不阻止服务器退出）
+    private static final ForkJoinPool PARSE_POOL = new ForkJoinPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            pool -> {
+                var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("ArsenalGraft-TemplateParser-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            },
+            null, false);
+    
+    // 上一次成功加载的模板文件哈希（每次重载都会创建新的监听器实例，因此是静态的）
+    private static volatile Map<ResourceLocation, String> lastHashes = Map.of();
+    // 磁盘缓存当前对应的汇总键，为null表示尚未读取
+    private static volatile String lastCacheKey;
+    
+    /**
+     * 准备阶段的结果：待发布的模板及其哈希
+     */
+    public record Prepared(Map<ResourceLocation, ModificationTemplate> templates, Map<ResourceLocation, String> hashes,
+                           int parsed, int reused, int cached, int failed) {}
+    
+    /**
+     * 模板来源：重新解析、沿用内存中的模板、从磁盘缓存还原
+     */
+    private enum Source { PARSED, REUSED, CACHED }
+    
+    /**
+     * 单个文件的处理结果，template 为null表示失败
+     */
+    private record FileResult(ResourceLocation id, String hash, ModificationTemplate template, Source source) {}
     
     @Override
-    protected void apply(@Nonnull Map<ResourceLocation, JsonElement> object, @Nonnull ResourceManager resourceManager, @Nonnull ProfilerFiller profiler) {
-        LOGGER.info("开始加载Arsenal Graft改造模板... (命名空间过滤: data/*/modifications/*.json under arsenalgraft)");
-        if (object.isEmpty()) {
+    @Nonnull
+    protected Prepared prepare(@Nonnull ResourceManager resourceManager, @Nonnull ProfilerFiller profiler) {
+        Map<ResourceLocation, Resource> resources = LISTER.listMatchingResources(resourceManager);
+        if (resources.isEmpty()) {
             LOGGER.warn("未发现任何改造模板 JSON (检查: data/arsenalgraft/modifications/*.json 路径是否存在以及资源是否打进数据包)");
-        } else {
-            LOGGER.debug("发现模板文件列表: {}", object.keySet());
+            return new Prepared(Map.of(), Map.of(), 0, 0, 0, 0);
         }
         
         ModificationManager manager = ServiceRegistry.getInstance().getService(ModificationManager.class);
-        if (manager == null) {
-            LOGGER.error("ModificationManager服务未初始化，无法加载改造模板");
-            return;
+        Map<ResourceLocation, String> previousHashes = lastHashes;
+        // 只有进程内第一次加载需要磁盘缓存，之后未变化的模板直接沿用内存中的对象
+        TemplateCache cache = previousHashes.isEmpty() ? TemplateCache.read() : TemplateCache.empty();
+        if (lastCacheKey == null) {
+            lastCacheKey = cache.getKey();
         }
         
-    // 清除旧模板 (完整重载)
-    try { manager.clearTemplates(); } catch (Exception e) { LOGGER.warn("无法清除旧模板", e); }
+        List<Map.Entry<ResourceLocation, Resource>> entries = new ArrayList<>(resources.entrySet());
+        List<FileResult> results = PARSE_POOL.submit(() -> entries.parallelStream()
+                .map(entry -> loadFile(LISTER.fileToId(entry.getKey()), entry.getValue(), manager, previousHashes, cache))
+                .toList()).join();
         
-        int loaded = 0;
+        Map<ResourceLocation, ModificationTemplate> templates = new HashMap<>();
+        Map<ResourceLocation, String> hashes = new HashMap<>();
+        int parsed = 0;
+        int reused = 0;
+        int cached = 0;
         int failed = 0;
-        
-        for (Map.Entry<ResourceLocation, JsonElement> entry : object.entrySet()) {
-            ResourceLocation id = entry.getKey();
-            JsonElement json = entry.getValue();
-            
-            try {
-                if (json.isJsonObject()) {
-                    ModificationTemplate template = parseTemplate(id, json.getAsJsonObject());
-                    if (template != null) {
-                        manager.registerTemplate(id, template);
-                        loaded++;
-                        LOGGER.debug("成功加载改造模板: {}", id);
-                    } else {
-                        LOGGER.warn("解析改造模板失败: {}", id);
-                        failed++;
-                    }
-                } else {
-                    LOGGER.warn("改造模板不是有效的JSON对象: {}", id);
-                    failed++;
-                }
-            } catch (Exception e) {
-                LOGGER.error("加载改造模板时发生错误: {}", id, e);
+        for (FileResult result : results) {
+            if (result.template() == null) {
                 failed++;
+                continue;
+            }
+            templates.put(result.id(), result.template());
+            hashes.put(result.id(), result.hash());
+            switch (result.source()) {
+                case PARSED -> parsed++;
+                case REUSED -> reused++;
+                case CACHED -> cached++;
             }
         }
         
-        LOGGER.info("Arsenal Graft改造模板加载完成: 成功 {}, 失败 {}", loaded, failed);
+        // 源文件有变化时重写磁盘缓存（仍在后台线程）
+        String key = TemplateCache.combinedKey(hashes);
+        if (!key.equals(lastCacheKey)) {
+            TemplateCache.write(key, templates, hashes);
+            lastCacheKey = key;
+        }
+        return new Prepared(templates, hashes, parsed, reused, cached, failed);
     }
     
     /**
-     * 解析JSON为改造模板
-     * 这个方法同时被JSON加载器和KubeJS构建器使用
-     * 
-     * @param id 模板ID
-     * @param json JSON对象
-     * @return 解析的模板，失败时返回null
+     * 读取、哈希并解析单个模板文件（在解析线程池中执行）
      */
-    public static ModificationTemplate parseTemplate(ResourceLocation id, JsonObject json) {
+    private static FileResult loadFile(ResourceLocation id, Resource resource, ModificationManager manager,
+                                       Map<ResourceLocation, String> previousHashes, TemplateCache cache) {
         try {
-            ModificationTemplate.Builder builder = new ModificationTemplate.Builder(id);
-            
-            // 解析基础属性
-            if (json.has("name")) {
-                builder.displayName(Component.literal(json.get("name").getAsString()));
-            } else {
-                builder.displayName(Component.literal(id.getPath()));
+            byte[] bytes;
+            try (InputStream in = resource.open()) {
+                bytes = in.readAllBytes();
             }
+            String hash = Hashing.sha256().hashBytes(bytes).toString();
             
-            if (json.has("description")) {
-                String desc = json.get("description").getAsString();
-                builder.description(List.of(Component.literal(desc)));
+            ModificationTemplate previous = manager == null ? null : manager.getTemplate(id).orElse(null);
+            if (previous != null && hash.equals(previousHashes.get(id))) {
+                // 文件未变化，沿用同一个模板对象
+                return new FileResult(id, hash, previous, Source.REUSED);
             }
-            
-            if (json.has("slotType")) {
-                builder.slotType(json.get("slotType").getAsString());
-            }
-            
-            if (json.has("maxInstances")) {
-                builder.maxInstallCount(json.get("maxInstances").getAsInt());
+            ModificationTemplate cachedTemplate = cache.get(id, hash);
+            if (cachedTemplate != null) {
+                return new FileResult(id, hash, cachedTemplate, Source.CACHED);
             }
             
-            if (json.has("requirements")) {
-                // TODO: 未来可添加 requirements 校验逻辑
+            // 流式解析，不构建JSON树
+            ModificationTemplate template;
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+                template = TemplateParser.parse(id, reader);
             }
-            
-            // 解析组件
-            if (json.has("components")) {
-                JsonObject components = json.getAsJsonObject("components");
-                for (String componentType : components.keySet()) {
-                    JsonObject componentConfig = components.getAsJsonObject(componentType);
-                    
-                    IModificationComponent component = parseComponent(componentType, componentConfig);
-                    if (component != null) {
-                        builder.addComponent(componentType, component);
-                    } else {
-                        LOGGER.warn("无法解析组件: {} in template: {}", componentType, id);
-                    }
-                }
-            }
-            
-            return builder.build();
-            
-        } catch (Exception e) {
-            LOGGER.error("解析改造模板失败: {}", id, e);
-            return null;
-        }
-    }
-    
-    /**
-     * 解析组件配置
-     * 
-     * @param componentType 组件类型
-     * @param config 配置JSON
-     * @return 组件实例
-     */
-    private static IModificationComponent parseComponent(String componentType, JsonObject config) {
-        try {
-            return switch (componentType) {
-                case "inventory" -> parseInventoryComponent(config);
-                case "attribute" -> parseAttributeComponent(config);
-                case "skill" -> parseSkillComponent(config);
-                case "effect" -> parseEffectComponent(config);
-                default -> {
-                    LOGGER.warn("未知的组件类型: {}", componentType);
-                    yield null;
-                }
-            };
+            return new FileResult(id, hash, template, Source.PARSED);
         } catch (Exception e) {
-            LOGGER.error("解析组件失败: type={}", componentType, e);
-            return null;
-        }
-    }
-    
-    /**
-     * 解析物品栏组件
-     */
-    private static IModificationComponent parseInventoryComponent(JsonObject config) {
-        // 从配置创建物品栏组件
-        Map<String, Object> props = new HashMap<>();
-        
-        if (config.has("size")) {
-            props.put("size", config.get("size").getAsInt());
-        } else {
-            props.put("size", 27); // 默认大小
-        }
-        
-        if (config.has("slotType")) {
-            props.put("slotType", config.get("slotType").getAsString());
+            LOGGER.error("加载改造模板时发生错误: {}", id, e);
+            return new FileResult(id, null, null, Source.PARSED);
         }
-        
-        if (config.has("allowedItems")) {
-            // 解析允许的物品列表
-            // 暂时简化实现
-        }
-        
-        // 通过ComponentFactory创建组件
-        return ComponentFactory.createInventoryComponent(props);
     }
     
-    /**
-     * 解析属性组件
-     */
-    private static IModificationComponent parseAttributeComponent(JsonObject config) {
-        Map<String, Object> props = new HashMap<>();
-        
-        if (config.has("attributes")) {
-            JsonObject attributes = config.getAsJsonObject("attributes");
-            Map<String, Double> attributeValues = new HashMap<>();
-            
-            for (String attrName : attributes.keySet()) {
-                attributeValues.put(attrName, attributes.get(attrName).getAsDouble());
-            }
-            
-            props.put("attributes", attributeValues);
-        }
-        
-        return ComponentFactory.createAttributeComponent(props);
-    }
-    
-    /**
-     * 解析技能组件
-     */
-    private static IModificationComponent parseSkillComponent(JsonObject config) {
-        Map<String, Object> props = new HashMap<>();
-        
-        if (config.has("skillId")) {
-            props.put("skillId", config.get("skillId").getAsString());
-        }
-        
-        if (config.has("cooldown")) {
-            props.put("cooldown", config.get("cooldown").getAsInt());
-        }
-        
-        if (config.has("manaCost")) {
-            props.put("manaCost", config.get("manaCost").getAsInt());
+    @Override
+    protected void apply(@Nonnull Prepared prepared, @Nonnull ResourceManager resourceManager, @Nonnull ProfilerFiller profiler) {
+        ModificationManager manager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+        if (manager == null) {
+            LOGGER.error("ModificationManager服务未初始化，无法加载改造模板");
+            return;
         }
         
-        return ComponentFactory.createSkillComponent(props);
+        // 新注册表已在准备阶段构建完成，这里一次性替换，重载期间读取方始终看到完整的旧注册表
+        manager.replaceTemplates(prepared.templates());
+        lastHashes = Map.copyOf(prepared.hashes());
+        LOGGER.info("Arsenal Graft改造模板加载完成: 解析 {}, 未变化 {}, 缓存 {}, 失败 {}",
+                prepared.parsed(), prepared.reused(), prepared.cached(), prepared.failed());
     }
     
     /**
-     * 解析效果组件
+     * 解析JSON为改造模板
+     * 这个方法同时被JSON加载器和KubeJS构建器使用，实际解析由 {@link TemplateParser} 完成
+     * 
+     * @param id 模板ID
+     * @param json JSON对象
+     * @return 解析的模板，失败时返回null
      */
-    private static IModificationComponent parseEffectComponent(JsonObject config) {
-        Map<String, Object> props = new HashMap<>();
-        
-        if (config.has("effects")) {
-            // 解析药水效果列表
-            // 暂时简化实现
+    public static ModificationTemplate parseTemplate(ResourceLocation id, JsonObject json) {
+        try {
+            return TemplateParser.parse(id, json);
+        } catch (Exception e) {
+            LOGGER.error("解析改造模板失败: {}", id, e);
+            return null;
         }
-        
-        return ComponentFactory.createEffectComponent(props);
     }
     
     /**
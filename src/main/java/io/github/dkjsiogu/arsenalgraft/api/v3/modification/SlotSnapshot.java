@@ -0,0 +1,244 @@
+package io.github.dkjsiogu.arsenalgraft.api.v3.modification;
+
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 玩家已安装插槽的不可变快照
+ *
+ * 安装/卸载时整体替换（写时复制），读取方无需加锁也不会分配新集合。
+ * 每个快照带有全局递增的版本号，GUI 等调用方可以通过比较版本号
+ * 低成本地判断插槽列表是否发生变化。
+ *
+ * 模板和槽位类型按 {@link TemplateIds} 的整数ID索引：已安装模板用位集记录，
+ * 每个模板的实例数量用计数数组记录，是否已安装、实例数量和按类型过滤都是数组访问。
+ */
+public final class SlotSnapshot {
+
+    private static final AtomicLong VERSION_COUNTER = new AtomicLong();
+
+    /**
+     * 空快照（版本号0），用于尚未加载数据的场景
+     */
+    public static final SlotSnapshot EMPTY = new SlotSnapshot(0L, List.of());
+
+    private final long version;
+    private final List<InstalledSlot> slots;
+    private final Map<UUID, InstalledSlot> byId;
+    // 已安装模板的位集及每个模板的实例数量（按模板整数ID索引）
+    private final BitSet installedTemplates;
+    private final int[] templateCounts;
+    private final List<InstalledSlot>[] byTemplate;
+    // 按槽位类型整数ID索引
+    private final List<InstalledSlot>[] byType;
+
+    @SuppressWarnings("unchecked")
+    private SlotSnapshot(long version, List<InstalledSlot> slots) {
+        this.version = version;
+        this.slots = Collections.unmodifiableList(slots);
+
+        int maxTemplate = -1;
+        int maxType = -1;
+        for (InstalledSlot slot : slots) {
+            maxTemplate = Math.max(maxTemplate, slot.getTemplate().getNumericId());
+            maxType = Math.max(maxType, slot.getTemplate().getSlotTypeId());
+        }
+
+        Map<UUID, InstalledSlot> ids = new HashMap<>();
+        BitSet installed = new BitSet(maxTemplate + 1);
+        int[] counts = new int[maxTemplate + 1];
+        List<InstalledSlot>[] templates = new List[maxTemplate + 1];
+        List<InstalledSlot>[] types = new List[maxType + 1];
+        for (InstalledSlot slot : slots) {
+            ids.put(slot.getSlotId(), slot);
+            int templateId = slot.getTemplate().getNumericId();
+            int typeId = slot.getTemplate().getSlotTypeId();
+            installed.set(templateId);
+            counts[templateId]++;
+            if (templates[templateId] == null) templates[templateId] = new ArrayList<>(1);
+            templates[templateId].add(slot);
+            if (types[typeId] == null) types[typeId] = new ArrayList<>(1);
+            types[typeId].add(slot);
+        }
+        for (int i = 0; i < templates.length; i++) {
+            templates[i] = templates[i] == null ? List.of() : Collections.unmodifiableList(templates[i]);
+        }
+        for (int i = 0; i < types.length; i++) {
+            types[i] = types[i] == null ? List.of() : Collections.unmodifiableList(types[i]);
+        }
+        this.byId = ids;
+        this.installedTemplates = installed;
+        this.templateCounts = counts;
+        this.byTemplate = templates;
+        this.byType = types;
+    }
+
+    /**
+     * 由插槽列表创建新快照（分配新的版本号）
+     */
+    public static SlotSnapshot of(List<InstalledSlot> slots) {
+        return new SlotSnapshot(VERSION_COUNTER.incrementAndGet(), new ArrayList<>(slots));
+    }
+
+    /**
+     * 返回追加了插槽的新快照；slotId 已存在时返回自身
+     */
+    public SlotSnapshot with(InstalledSlot slot) {
+        if (byId.containsKey(slot.getSlotId())) {
+            return this;
+        }
+        List<InstalledSlot> next = new ArrayList<>(slots.size() + 1);
+        next.addAll(slots);
+        next.add(slot);
+        return new SlotSnapshot(VERSION_COUNTER.incrementAndGet(), next);
+    }
+
+    /**
+     * 返回移除了指定插槽的新快照；slotId 不存在时返回自身
+     */
+    public SlotSnapshot without(UUID slotId) {
+        InstalledSlot removed = byId.get(slotId);
+        if (removed == null) {
+            return this;
+        }
+        List<InstalledSlot> next = new ArrayList<>(slots);
+        next.remove(removed);
+        return new SlotSnapshot(VERSION_COUNTER.incrementAndGet(), next);
+    }
+
+    /**
+     * 返回追加了一批插槽的新快照（只分配一个版本号）；已存在的 slotId 会被忽略
+     */
+    public SlotSnapshot withAll(Collection<InstalledSlot> added) {
+        List<InstalledSlot> next = new ArrayList<>(slots.size() + added.size());
+        next.addAll(slots);
+        Set<UUID> seen = new HashSet<>(byId.keySet());
+        for (InstalledSlot slot : added) {
+            if (seen.add(slot.getSlotId())) {
+                next.add(slot);
+            }
+        }
+        if (next.size() == slots.size()) {
+            return this;
+        }
+        return new SlotSnapshot(VERSION_COUNTER.incrementAndGet(), next);
+    }
+
+    /**
+     * 返回移除了一批插槽的新快照（只分配一个版本号）；都不存在时返回自身
+     */
+    public SlotSnapshot withoutAll(Collection<UUID> slotIds) {
+        Set<UUID> ids = new HashSet<>(slotIds);
+        List<InstalledSlot> next = new ArrayList<>(slots.size());
+        for (InstalledSlot slot : slots) {
+            if (!ids.contains(slot.getSlotId())) {
+                next.add(slot);
+            }
+        }
+        if (next.size() == slots.size()) {
+            return this;
+        }
+        return new SlotSnapshot(VERSION_COUNTER.incrementAndGet(), next);
+    }
+
+    /**
+     * 快照版本号，插槽列表每次变化都会得到更大的版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 所有插槽（不可变，按安装顺序）
+     */
+    public List<InstalledSlot> getSlots() {
+        return slots;
+    }
+
+    public InstalledSlot getById(UUID slotId) {
+        return byId.get(slotId);
+    }
+
+    /**
+     * 获取指定模板的第一个实例
+     */
+    public InstalledSlot firstOf(ResourceLocation templateId) {
+        List<InstalledSlot> list = ofTemplate(TemplateIds.idOf(templateId));
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * 获取指定模板的所有实例（不可变）
+     */
+    public List<InstalledSlot> ofTemplate(ResourceLocation templateId) {
+        return ofTemplate(TemplateIds.idOf(templateId));
+    }
+
+    /**
+     * 按模板整数ID获取所有实例（不可变）
+     */
+    public List<InstalledSlot> ofTemplate(int templateId) {
+        return templateId >= 0 && templateId < byTemplate.length ? byTemplate[templateId] : List.of();
+    }
+
+    /**
+     * 是否安装了指定模板
+     */
+    public boolean has(ResourceLocation templateId) {
+        return has(TemplateIds.idOf(templateId));
+    }
+
+    /**
+     * 按模板整数ID判断是否已安装
+     */
+    public boolean has(int templateId) {
+        return templateId >= 0 && installedTemplates.get(templateId);
+    }
+
+    /**
+     * 指定模板的已安装数量
+     */
+    public int countOf(ResourceLocation templateId) {
+        return countOf(TemplateIds.idOf(templateId));
+    }
+
+    /**
+     * 按模板整数ID获取已安装数量
+     */
+    public int countOf(int templateId) {
+        return templateId >= 0 && templateId < templateCounts.length ? templateCounts[templateId] : 0;
+    }
+
+    /**
+     * 指定槽位类型的插槽（不可变）
+     */
+    public List<InstalledSlot> ofType(String slotType) {
+        return ofType(TemplateIds.slotTypeIdOf(slotType));
+    }
+
+    /**
+     * 按槽位类型整数ID获取插槽（不可变）
+     */
+    public List<InstalledSlot> ofType(int slotTypeId) {
+        return slotTypeId >= 0 && slotTypeId < byType.length ? byType[slotTypeId] : List.of();
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public boolean isEmpty() {
+        return slots.isEmpty();
+    }
+}
@@ -0,0 +1,211 @@
+package io.github.dkjsiogu.arsenalgraft.api.v3.modification;
+
+import com.google.common.hash.Hashing;
+import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
+import io.github.dkjsiogu.arsenalgraft.api.v3.component.IModificationComponent;
+import io.github.dkjsiogu.arsenalgraft.api.v3.loader.TemplateParser;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的改造模板磁盘缓存
+ *
+ * 模板以压缩NBT保存在 {@code <游戏目录>/cache/arsenalgraft/templates.dat}，每个模板记录其源文件的内容哈希。
+ * 启动时源文件哈希与缓存一致的模板直接由缓存还原（组件原型 + 反序列化配置，组件保持声明顺序），
+ * 不再经过JSON解析和 {@link ComponentFactory} 校验；哈希不一致或缓存无法还原时回退到完整解析。
+ *
+ * 整个缓存还带有所有源文件哈希的汇总键，只有汇总键变化时才重写缓存文件。
+ */
+public final class TemplateCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    // 缓存格式版本，编码方式变化时递增使旧缓存失效
+    private static final int FORMAT_VERSION = 2;
+
+    private final String key;
+    private final Map<ResourceLocation, CompoundTag> entries;
+
+    private TemplateCache(String key, Map<ResourceLocation, CompoundTag> entries) {
+        this.key = key;
+        this.entries = entries;
+    }
+
+    /**
+     * 空缓存（缓存文件不存在或无法读取时）
+     */
+    public static TemplateCache empty() {
+        return new TemplateCache("", Map.of());
+    }
+
+    public static Path cacheFile() {
+        return FMLPaths.GAMEDIR.get().resolve("cache").resolve(ArsenalGraft.MODID).resolve("templates.dat");
+    }
+
+    /**
+     * 读取缓存文件，不存在、版本不符或损坏时返回空缓存
+     */
+    public static TemplateCache read() {
+        Path file = cacheFile();
+        if (!Files.isRegularFile(file)) {
+            return empty();
+        }
+        try {
+            CompoundTag root = NbtIo.readCompressed(file.toFile());
+            if (root.getInt("version") != FORMAT_VERSION) {
+                return empty();
+            }
+            Map<ResourceLocation, CompoundTag> entries = new HashMap<>();
+            ListTag list = root.getList("templates", Tag.TAG_COMPOUND);
+            for (int i = 0; i < list.size(); i++) {
+                CompoundTag entry = list.getCompound(i);
+                ResourceLocation id = ResourceLocation.tryParse(entry.getString("id"));
+                if (id != null) {
+                    entries.put(id, entry);
+                }
+            }
+            return new TemplateCache(root.getString("key"), entries);
+        } catch (Exception e) {
+            LOGGER.warn("读取改造模板缓存失败，将完整解析: {}", e.getMessage());
+            return empty();
+        }
+    }
+
+    /**
+     * 所有源文件哈希的汇总键（与文件顺序无关）
+     */
+    public static String combinedKey(Map<ResourceLocation, String> hashes) {
+        List<ResourceLocation> ids = new ArrayList<>(hashes.keySet());
+        ids.sort(null);
+        StringBuilder sb = new StringBuilder();
+        for (ResourceLocation id : ids) {
+            sb.append(id).append('=').append(hashes.get(id)).append('\n');
+        }
+        return Hashing.sha256().hashString(sb, StandardCharsets.UTF_8).toString();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 按源文件哈希还原模板；缓存中没有该模板、哈希不一致或无法还原时返回null
+     */
+    @Nullable
+    public ModificationTemplate get(ResourceLocation id, String hash) {
+        CompoundTag entry = entries.get(id);
+        if (entry == null || !entry.getString("hash").equals(hash)) {
+            return null;
+        }
+        try {
+            return decode(id, entry);
+        } catch (Exception e) {
+            LOGGER.debug("改造模板缓存无法还原: {}", id, e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存文件（先写临时文件再替换，写入失败不影响加载）
+     */
+    public static void write(String key, Map<ResourceLocation, ModificationTemplate> templates, Map<ResourceLocation, String> hashes) {
+        CompoundTag root = new CompoundTag();
+        root.putInt("version", FORMAT_VERSION);
+        root.putString("key", key);
+        ListTag list = new ListTag();
+        for (Map.Entry<ResourceLocation, ModificationTemplate> entry : templates.entrySet()) {
+            String hash = hashes.get(entry.getKey());
+            if (hash != null) {
+                list.add(encode(entry.getValue(), hash));
+            }
+        }
+        root.put("templates", list);
+
+        Path file = cacheFile();
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            NbtIo.writeCompressed(root, tmp.toFile());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("写入改造模板缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private static CompoundTag encode(ModificationTemplate template, String hash) {
+        CompoundTag tag = new CompoundTag();
+        tag.putString("id", template.getId().toString());
+        tag.putString("hash", hash);
+        // JSON 模板的名称和描述都是纯文本
+        tag.putString("name", template.getDisplayName().getString());
+        ListTag description = new ListTag();
+        for (Component line : template.getDescription()) {
+            description.add(StringTag.valueOf(line.getString()));
+        }
+        tag.put("description", description);
+        tag.putString("slotType", template.getSlotType());
+        tag.putInt("maxInstallCount", template.getMaxInstallCount());
+        tag.putBoolean("hasConfiguration", template.hasConfiguration());
+
+        // 复合标签不保留键的顺序，组件按声明顺序存成列表
+        ListTag components = new ListTag();
+        for (Map.Entry<String, IModificationComponent> entry : template.getComponents().entrySet()) {
+            CompoundTag component = new CompoundTag();
+            component.putString("key", entry.getKey());
+            component.put("data", entry.getValue().serializeNBT());
+            components.add(component);
+        }
+        tag.put("components", components);
+        return tag;
+    }
+
+    private static ModificationTemplate decode(ResourceLocation id, CompoundTag tag) {
+        ModificationTemplate.Builder builder = new ModificationTemplate.Builder(id)
+                .displayName(Component.literal(tag.getString("name")))
+                .slotType(tag.getString("slotType"))
+                .maxInstallCount(tag.getInt("maxInstallCount"))
+                .hasConfiguration(tag.getBoolean("hasConfiguration"));
+
+        ListTag descriptionTag = tag.getList("description", Tag.TAG_STRING);
+        if (!descriptionTag.isEmpty()) {
+            List<Component> description = new ArrayList<>(descriptionTag.size());
+            for (int i = 0; i < descriptionTag.size(); i++) {
+                description.add(Component.literal(descriptionTag.getString(i)));
+            }
+            builder.description(description);
+        }
+
+        ListTag components = tag.getList("components", Tag.TAG_COMPOUND);
+        for (int i = 0; i < components.size(); i++) {
+            CompoundTag entry = components.getCompound(i);
+            String componentKey = entry.getString("key");
+            // 与JSON解析共用同一张组件表，配置由缓存中的NBT恢复
+            IModificationComponent component = TemplateParser.createBlankComponent(componentKey);
+            if (component == null) {
+                throw new IllegalStateException("未知的组件类型: " + componentKey);
+            }
+            component.deserializeNBT(entry.getCompound("data"));
+            builder.addComponent(componentKey, component);
+        }
+        return builder.build();
+    }
+}
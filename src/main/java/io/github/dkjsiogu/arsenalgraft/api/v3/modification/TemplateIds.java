@@ -0,0 +1,65 @@
+package io.github.dkjsiogu.arsenalgraft.api.v3.modification;
+
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模板ID与槽位类型的整数驻留表
+ *
+ * 模板构建时为其 ResourceLocation 和 slotType 分配从0开始的紧凑整数ID，
+ * 插槽快照据此用位集和计数数组做常数时间的查询，不再逐个比较 ResourceLocation。
+ *
+ * ID 只增不减且在整个进程内稳定：资源重载重新构建模板时同一个 ID 会得到同一个整数，
+ * 已加载玩家快照中的索引因此不会失效。
+ */
+public final class TemplateIds {
+
+    private static final Map<ResourceLocation, Integer> templateIds = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> slotTypeIds = new ConcurrentHashMap<>();
+
+    private TemplateIds() {}
+
+    /**
+     * 获取（必要时分配）模板的整数ID
+     */
+    public static int intern(ResourceLocation templateId) {
+        Integer id = templateIds.get(templateId);
+        if (id != null) {
+            return id;
+        }
+        synchronized (templateIds) {
+            return templateIds.computeIfAbsent(templateId, k -> templateIds.size());
+        }
+    }
+
+    /**
+     * 获取（必要时分配）槽位类型的整数ID
+     */
+    public static int internSlotType(String slotType) {
+        Integer id = slotTypeIds.get(slotType);
+        if (id != null) {
+            return id;
+        }
+        synchronized (slotTypeIds) {
+            return slotTypeIds.computeIfAbsent(slotType, k -> slotTypeIds.size());
+        }
+    }
+
+    /**
+     * 查询模板的整数ID，未分配时返回-1（不分配）
+     */
+    public static int idOf(ResourceLocation templateId) {
+        Integer id = templateIds.get(templateId);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * 查询槽位类型的整数ID，未分配时返回-1（不分配）
+     */
+    public static int slotTypeIdOf(String slotType) {
+        Integer id = slotTypeIds.get(slotType);
+        return id == null ? -1 : id;
+    }
+}
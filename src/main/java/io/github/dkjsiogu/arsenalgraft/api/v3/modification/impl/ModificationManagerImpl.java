@@ -1,20 +1,24 @@
 package io.github.dkjsiogu.arsenalgraft.api.v3.modification.impl;
 
+import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationManager;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationTemplate;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.InstalledSlot;
-import io.github.dkjsiogu.arsenalgraft.api.v3.component.IModificationComponent;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.SlotSnapshot;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.resources.ResourceLocation;
 import io.github.dkjsiogu.arsenalgraft.data.DataPersistenceManager;
+import io.github.dkjsiogu.arsenalgraft.data.PersistencePipeline;
+import io.github.dkjsiogu.arsenalgraft.data.PlayerDataStore;
+import io.github.dkjsiogu.arsenalgraft.core.tick.SlotTickEngine;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.player.Player;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
 
 /**
  * ModificationManager的线程安全实现
@@ -27,89 +31,163 @@ public class ModificationManagerImpl implements ModificationManager {
     // 旧版本(<=2.x) 使用的直接 ListTag 键 (已废弃)。现仅用于一次性迁移，不再作为读取回退。
     private static final String LEGACY_SLOTS_KEY = "arsenalgraft_v3_slots";
     
-    // 注册的模板（线程安全）
-    private final Map<ResourceLocation, ModificationTemplate> templates = new ConcurrentHashMap<>();
+    // 注册的模板：不可变快照，读取方不加锁；修改时构建新映射后通过 volatile 整体替换
+    private volatile Map<ResourceLocation, ModificationTemplate> templates = Map.of();
     
-    // 玩家数据缓存（线程安全）
-    private final Map<UUID, List<InstalledSlot>> playerSlotsCache = new ConcurrentHashMap<>();
-    
-    // 读写锁保证数据一致性
-    private final ReentrantReadWriteLock dataLock = new ReentrantReadWriteLock();
+    // 玩家数据缓存（线程安全），每个玩家一个不可变插槽快照。
+    // 读取直接访问快照不加锁；写入持有该玩家自己的锁，不同玩家之间互不阻塞。
+    private final Map<UUID, PlayerSlotStore> playerSlotsCache = new ConcurrentHashMap<>();
     
     public ModificationManagerImpl() {
-        System.out.println("[ModificationManagerImpl] 初始化3.0改造管理器（线程安全版本）");
+        ArsenalGraft.LOGGER.info("初始化3.0改造管理器（线程安全版本）");
     }
     
     @Override
-    public void registerTemplate(ResourceLocation id, ModificationTemplate template) {
-        dataLock.writeLock().lock();
-        try {
-            templates.put(id, template);
-            System.out.println("[ModificationManagerImpl] 注册改造模板: " + id);
-        } finally {
-            dataLock.writeLock().unlock();
+    public synchronized void registerTemplate(ResourceLocation id, ModificationTemplate template) {
+        Map<ResourceLocation, ModificationTemplate> next = new HashMap<>(templates);
+        next.put(id, template);
+        templates = Map.copyOf(next);
+        ArsenalGraft.LOGGER.debug("注册改造模板: {}", id);
+    }
+    
+    @Override
+    public synchronized void registerTemplates(Map<ResourceLocation, ModificationTemplate> batch) {
+        if (batch.isEmpty()) {
+            return;
         }
+        Map<ResourceLocation, ModificationTemplate> next = new HashMap<>(templates);
+        next.putAll(batch);
+        templates = Map.copyOf(next);
+        ArsenalGraft.LOGGER.info("批量注册改造模板: {}", batch.size());
+        rebindLoadedSlots(templates);
     }
     
     @Override
     public Optional<ModificationTemplate> getTemplate(ResourceLocation id) {
-        dataLock.readLock().lock();
-        try {
-            return Optional.ofNullable(templates.get(id));
-        } finally {
-            dataLock.readLock().unlock();
-        }
+        return Optional.ofNullable(templates.get(id));
     }
     
     @Override
     public List<ResourceLocation> getAllTemplateIds() {
-        dataLock.readLock().lock();
-        try {
-            return new ArrayList<>(templates.keySet());
-        } finally {
-            dataLock.readLock().unlock();
-        }
+        return new ArrayList<>(templates.keySet());
     }
 
     @Override
-    public void clearTemplates() {
-        dataLock.writeLock().lock();
-        try {
-            templates.clear();
-            System.out.println("[ModificationManagerImpl] 已清空所有改造模板 (资源重载)");
-        } finally {
-            dataLock.writeLock().unlock();
+    public synchronized void clearTemplates() {
+        templates = Map.of();
+        ArsenalGraft.LOGGER.info("已清空所有改造模板 (资源重载)");
+    }
+
+    @Override
+    public synchronized void replaceTemplates(Map<ResourceLocation, ModificationTemplate> newTemplates) {
+        templates = Map.copyOf(newTemplates);
+        ArsenalGraft.LOGGER.info("已替换改造模板注册表，模板数量: {}", newTemplates.size());
+        rebindLoadedSlots(templates);
+    }
+    
+    /**
+     * 将已加载玩家的插槽重新绑定到新注册表中的模板
+     * 
+     * 未变化的模板沿用同一个对象，只有内容变化的模板需要重新绑定；
+     * 新注册表中缺失的模板保持绑定旧模板对象（插槽数据不丢失）；
+     * 之前因模板缺失而保留的孤儿插槽，如果模板已恢复则重新挂载。
+     */
+    private void rebindLoadedSlots(Map<ResourceLocation, ModificationTemplate> registry) {
+        int rebound = 0;
+        int missing = 0;
+        int revived = 0;
+        List<Player> retrack = new ArrayList<>();
+        for (PlayerSlotStore store : playerSlotsCache.values()) {
+            store.lock.lock();
+            try {
+                Player owner = store.owner();
+                Player callbackTarget = owner != null && !owner.isRemoved() ? owner : null;
+                boolean changed = false;
+                for (InstalledSlot slot : store.snapshot().getSlots()) {
+                    ModificationTemplate next = registry.get(slot.getTemplate().getId());
+                    if (next == null) {
+                        missing++;
+                    } else if (next != slot.getTemplate()) {
+                        slot.rebindTemplate(next, callbackTarget);
+                        store.markDirty(slot.getSlotId());
+                        changed = true;
+                        rebound++;
+                    }
+                }
+                
+                List<InstalledSlot> restored = new ArrayList<>();
+                for (Iterator<Map.Entry<UUID, CompoundTag>> it = store.orphans().entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<UUID, CompoundTag> entry = it.next();
+                    ModificationTemplate template = registry.get(ResourceLocation.tryParse(entry.getValue().getString("templateId")));
+                    if (template != null) {
+                        // 原始标签已在持久化数据中，无需标记为脏
+                        restored.add(new InstalledSlot(entry.getKey(), template, entry.getValue()));
+                        it.remove();
+                    }
+                }
+                revived += restored.size();
+                
+                if (!restored.isEmpty()) {
+                    store.republish(store.snapshot().withAll(restored));
+                } else if (changed) {
+                    // 模板的槽位类型可能变化，按新绑定重建索引
+                    store.republish(SlotSnapshot.of(store.snapshot().getSlots()));
+                }
+                if ((changed || !restored.isEmpty()) && callbackTarget != null) {
+                    retrack.add(callbackTarget);
+                }
+            } finally {
+                store.lock.unlock();
+            }
+        }
+        if (rebound > 0 || missing > 0 || revived > 0) {
+            ArsenalGraft.LOGGER.info("重新绑定插槽: {}，模板缺失(保留旧模板): {}，恢复孤儿插槽: {}", rebound, missing, revived);
+        }
+        // 新模板可能带来可 tick 组件，之前不在时间轮上的玩家也要重新登记
+        for (Player player : retrack) {
+            retrack(player);
+        }
+    }
+    
+    /**
+     * 插槽变化后重新登记玩家的 tick 调度
+     * 
+     * 时间轮只在已登记玩家的任务到期时检查快照版本，之前没有可 tick 组件的玩家不会被发现，
+     * 因此安装和重新绑定后都在这里登记。tick 状态只在主线程访问，其他线程调用时转交给主线程。
+     */
+    private static void retrack(Player player) {
+        if (!(player instanceof ServerPlayer serverPlayer) || serverPlayer.isRemoved()) {
+            return;
+        }
+        MinecraftServer server = serverPlayer.getServer();
+        if (server == null) {
+            return;
+        }
+        if (server.isSameThread()) {
+            SlotTickEngine.track(serverPlayer);
+        } else {
+            server.execute(() -> SlotTickEngine.track(serverPlayer));
         }
     }
 
     @Override
     public boolean isTemplateRegistered(ResourceLocation id) {
-        dataLock.readLock().lock();
-        try { return templates.containsKey(id); } finally { dataLock.readLock().unlock(); }
+        return templates.containsKey(id);
     }
     
     @Override
     public boolean canInstallModification(Player player, ModificationTemplate template) {
-        dataLock.readLock().lock();
-        try {
-            List<InstalledSlot> existingSlots = getAllInstalledSlots(player);
-            
-            // 检查同类型改造的数量限制
-            long sameTypeCount = existingSlots.stream()
-                    .filter(slot -> slot.getTemplate().getId().equals(template.getId()))
-                    .count();
-            
-            if (sameTypeCount >= template.getMaxInstallCount()) {
-                System.out.println("[ModificationManagerImpl] 改造安装失败：已达到最大安装数量 " + template.getMaxInstallCount());
-                return false;
-            }
-            
-            // 可以添加更多的验证逻辑，比如检查前置条件、资源需求等
-            
-            return true;
-        } finally {
-            dataLock.readLock().unlock();
+        // 检查同类型改造的数量限制
+        int sameTypeCount = getSlotSnapshot(player).countOf(template.getNumericId());
+        
+        if (template.exceedsInstallLimit(sameTypeCount + 1)) {
+            ArsenalGraft.LOGGER.warn("改造安装失败：{} 已达到最大安装数量 {}", template.getId(), template.getMaxInstallCount());
+            return false;
         }
+        
+        // 可以添加更多的验证逻辑，比如检查前置条件、资源需求等
+        
+        return true;
     }
     
     @Override
@@ -119,134 +197,258 @@ public class ModificationManagerImpl implements ModificationManager {
     
     @Override
     public boolean installSlot(Player player, InstalledSlot slot) {
-        dataLock.writeLock().lock();
+        PlayerSlotStore store = getStore(player);
+        store.lock.lock();
         try {
             // 安装插槽
             slot.install(player);
             
-            // 更新缓存
-            UUID playerId = player.getUUID();
-            List<InstalledSlot> playerSlots = playerSlotsCache.computeIfAbsent(playerId, k -> new ArrayList<>());
-            playerSlots.add(slot);
-            
-            // 保存到玩家数据
-            savePlayerData(player);
+            // 更新缓存并标记为脏，由写回任务合并持久化
+            store.setOwner(player);
+            store.add(slot);
+            retrack(player);
             
-            System.out.println("[ModificationManagerImpl] 成功安装插槽: " + slot.getTemplate().getId());
+            ArsenalGraft.LOGGER.debug("成功安装插槽: {}", slot.getTemplate().getId());
             return true;
             
         } catch (Exception e) {
-            System.err.println("[ModificationManagerImpl] 安装插槽失败: " + e.getMessage());
-            e.printStackTrace();
+            ArsenalGraft.LOGGER.error("安装插槽失败: {}", slot.getTemplate().getId(), e);
             return false;
         } finally {
-            dataLock.writeLock().unlock();
+            store.lock.unlock();
         }
     }
     
     @Override
     public boolean uninstallSlot(Player player, InstalledSlot slot) {
-        dataLock.writeLock().lock();
+        PlayerSlotStore store = getStore(player);
+        store.lock.lock();
         try {
             slot.uninstall(player);
             
-            // 从缓存中移除
-            UUID playerId = player.getUUID();
-            List<InstalledSlot> playerSlots = playerSlotsCache.get(playerId);
-            if (playerSlots != null) {
-                playerSlots.removeIf(s -> s.getSlotId().equals(slot.getSlotId()));
-            }
+            // 从缓存中移除，删除操作在下一次写回时持久化
+            store.setOwner(player);
+            store.remove(slot.getSlotId());
             
-            // 从玩家数据中移除
-            List<InstalledSlot> allSlots = getAllInstalledSlots(player);
-            allSlots.removeIf(s -> s.getSlotId().equals(slot.getSlotId()));
-            savePlayerSlots(player, allSlots);
-            
-            System.out.println("[ModificationManagerImpl] 成功卸载插槽: " + slot.getTemplate().getId());
+            ArsenalGraft.LOGGER.debug("成功卸载插槽: {}", slot.getTemplate().getId());
             return true;
         } catch (Exception e) {
-            System.err.println("[ModificationManagerImpl] 卸载插槽失败: " + e.getMessage());
-            e.printStackTrace();
+            ArsenalGraft.LOGGER.error("卸载插槽失败: {}", slot.getTemplate().getId(), e);
             return false;
         } finally {
-            dataLock.writeLock().unlock();
+            store.lock.unlock();
         }
     }
     
     @Override
     public boolean uninstallModification(Player player, ResourceLocation modificationId) {
-        dataLock.writeLock().lock();
+        PlayerSlotStore store = getStore(player);
+        store.lock.lock();
         try {
-            Optional<InstalledSlot> slotOpt = getInstalledSlot(player, modificationId);
-            if (slotOpt.isEmpty()) {
+            InstalledSlot slot = store.snapshot().firstOf(modificationId);
+            if (slot == null) {
                 return false;
             }
             
-            InstalledSlot slot = slotOpt.get();
             slot.uninstall(player);
             
-            // 从缓存中移除
-            UUID playerId = player.getUUID();
-            List<InstalledSlot> playerSlots = playerSlotsCache.get(playerId);
-            if (playerSlots != null) {
-                playerSlots.removeIf(s -> s.getSlotId().equals(slot.getSlotId()));
+            // 从缓存中移除，删除操作在下一次写回时持久化
+            store.setOwner(player);
+            store.remove(slot.getSlotId());
+            
+            ArsenalGraft.LOGGER.debug("成功卸载改造: {}", modificationId);
+            return true;
+        } finally {
+            store.lock.unlock();
+        }
+    }
+    
+    @Override
+    public boolean installSlots(Player player, List<InstalledSlot> slots, int maxSlots) {
+        if (slots.isEmpty()) {
+            return true;
+        }
+        PlayerSlotStore store = getStore(player);
+        store.lock.lock();
+        List<InstalledSlot> done = new ArrayList<>(slots.size());
+        try {
+            // 数量限制基于锁内的最新快照校验，与安装之间不会插入其他修改
+            SlotSnapshot snapshot = store.snapshot();
+            if (snapshot.size() + slots.size() > maxSlots) {
+                ArsenalGraft.LOGGER.warn("批量安装失败：超过插槽上限 {}", maxSlots);
+                return false;
+            }
+            Map<Integer, Integer> batchCounts = new HashMap<>();
+            for (InstalledSlot slot : slots) {
+                ModificationTemplate template = slot.getTemplate();
+                int count = batchCounts.merge(template.getNumericId(), 1, Integer::sum) + snapshot.countOf(template.getNumericId());
+                if (template.exceedsInstallLimit(count)) {
+                    ArsenalGraft.LOGGER.warn("批量安装失败：{} 超过最大安装数量 {}", template.getId(), template.getMaxInstallCount());
+                    return false;
+                }
+            }
+            
+            for (InstalledSlot slot : slots) {
+                // 先记录再安装，安装到一半失败的插槽也会被回滚
+                done.add(slot);
+                slot.install(player);
+            }
+            
+            // 全部成功后一次性发布新快照并标记为脏，整批只重新登记一次 tick 调度
+            store.setOwner(player);
+            store.addAll(slots);
+            retrack(player);
+            
+            ArsenalGraft.LOGGER.debug("成功批量安装插槽: {}", slots.size());
+            return true;
+            
+        } catch (Exception e) {
+            ArsenalGraft.LOGGER.error("批量安装插槽失败，回滚 {} 个已安装插槽", done.size(), e);
+            rollback(player, done, true);
+            return false;
+        } finally {
+            store.lock.unlock();
+        }
+    }
+    
+    @Override
+    public boolean uninstallSlots(Player player, List<InstalledSlot> slots) {
+        if (slots.isEmpty()) {
+            return true;
+        }
+        PlayerSlotStore store = getStore(player);
+        store.lock.lock();
+        List<InstalledSlot> done = new ArrayList<>(slots.size());
+        try {
+            // 先校验全部插槽都属于该玩家，任何一个不存在则整体失败
+            SlotSnapshot snapshot = store.snapshot();
+            Set<UUID> ids = new HashSet<>();
+            for (InstalledSlot slot : slots) {
+                if (snapshot.getById(slot.getSlotId()) == null || !ids.add(slot.getSlotId())) {
+                    ArsenalGraft.LOGGER.warn("批量卸载失败：插槽不存在或重复 {}", slot.getSlotId());
+                    return false;
+                }
+            }
+            
+            for (InstalledSlot slot : slots) {
+                done.add(slot);
+                slot.uninstall(player);
             }
             
-            // 从玩家数据中移除
-            List<InstalledSlot> allSlots = getAllInstalledSlots(player);
-            allSlots.removeIf(s -> s.getSlotId().equals(slot.getSlotId()));
-            savePlayerSlots(player, allSlots);
+            store.setOwner(player);
+            store.removeAll(ids);
             
-            System.out.println("[ModificationManagerImpl] 成功卸载改造: " + modificationId);
+            ArsenalGraft.LOGGER.debug("成功批量卸载插槽: {}", slots.size());
             return true;
+            
+        } catch (Exception e) {
+            ArsenalGraft.LOGGER.error("批量卸载插槽失败，回滚 {} 个已卸载插槽", done.size(), e);
+            rollback(player, done, false);
+            return false;
         } finally {
-            dataLock.writeLock().unlock();
+            store.lock.unlock();
+        }
+    }
+    
+    @Override
+    public List<InstalledSlot> uninstallModifications(Player player, List<ResourceLocation> modificationIds) {
+        if (modificationIds.isEmpty()) {
+            return List.of();
+        }
+        PlayerSlotStore store = getStore(player);
+        store.lock.lock();
+        try {
+            // 在锁内选出实例，选择与卸载之间不会插入其他修改
+            SlotSnapshot snapshot = store.snapshot();
+            Map<ResourceLocation, Integer> taken = new HashMap<>();
+            List<InstalledSlot> toRemove = new ArrayList<>(modificationIds.size());
+            for (ResourceLocation modificationId : modificationIds) {
+                int index = taken.merge(modificationId, 1, Integer::sum) - 1;
+                List<InstalledSlot> instances = snapshot.ofTemplate(modificationId);
+                if (index >= instances.size()) {
+                    ArsenalGraft.LOGGER.info("批量卸载失败：玩家没有足够的改造实例 {}", modificationId);
+                    return List.of();
+                }
+                toRemove.add(instances.get(index));
+            }
+            return uninstallSlots(player, toRemove) ? toRemove : List.of();
+        } finally {
+            store.lock.unlock();
+        }
+    }
+    
+    /**
+     * 撤销批量操作中已完成的部分（逆序），插槽快照保持不变
+     */
+    private void rollback(Player player, List<InstalledSlot> done, boolean wasInstall) {
+        for (int i = done.size() - 1; i >= 0; i--) {
+            InstalledSlot slot = done.get(i);
+            try {
+                if (wasInstall) {
+                    slot.uninstall(player);
+                } else {
+                    slot.install(player);
+                }
+            } catch (Exception e) {
+                ArsenalGraft.LOGGER.error("回滚插槽失败: {}", slot.getSlotId(), e);
+            }
         }
     }
     
     @Override
     public boolean hasModification(Player player, ResourceLocation modificationId) {
-        return getInstalledSlot(player, modificationId).isPresent();
+        return getSlotSnapshot(player).has(modificationId);
     }
     
     @Override
     public Optional<InstalledSlot> getInstalledSlot(Player player, ResourceLocation modificationId) {
-        return getAllInstalledSlots(player).stream()
-                .filter(slot -> slot.getTemplate().getId().equals(modificationId))
-                .findFirst();
+        return Optional.ofNullable(getSlotSnapshot(player).firstOf(modificationId));
+    }
+    
+    @Override
+    public Optional<InstalledSlot> getSlotById(Player player, UUID slotId) {
+        return Optional.ofNullable(getSlotSnapshot(player).getById(slotId));
     }
     
     @Override
     public List<InstalledSlot> getAllInstalledSlots(Player player) {
+        return getSlotSnapshot(player).getSlots();
+    }
+    
+    @Override
+    public SlotSnapshot getSlotSnapshot(Player player) {
+        return getStore(player).snapshot();
+    }
+    
+    /**
+     * 获取玩家的插槽存储，缓存未命中时从NBT加载
+     */
+    private PlayerSlotStore getStore(Player player) {
         UUID playerId = player.getUUID();
         
-        dataLock.readLock().lock();
-        try {
-            // 首先检查缓存
-            List<InstalledSlot> cachedSlots = playerSlotsCache.get(playerId);
-            if (cachedSlots != null) {
-                return new ArrayList<>(cachedSlots);
-            }
-        } finally {
-            dataLock.readLock().unlock();
+        // 首先检查缓存（无锁）
+        PlayerSlotStore cached = playerSlotsCache.get(playerId);
+        if (cached != null) {
+            cached.touch();
+            return cached;
         }
         
-        // 缓存未命中，从NBT加载
-        dataLock.writeLock().lock();
-        try {
-            List<InstalledSlot> slots = loadSlotsFromNBT(player);
-            playerSlotsCache.put(playerId, new ArrayList<>(slots));
-            return slots;
-        } finally {
-            dataLock.writeLock().unlock();
-        }
+        // 缓存未命中，从NBT加载；computeIfAbsent 只锁定该玩家所在的桶，其他玩家不受影响
+        return playerSlotsCache.computeIfAbsent(playerId, id -> loadStore(player));
     }
     
     /**
-     * 从NBT加载插槽数据
+     * 从NBT加载插槽数据并创建存储
+     *
+     * 旧格式（按 slot_i 下标存储）的数据会被标记为整体重写，
+     * 下一次写回时转换为按 slotId 存储的格式。
+     *
+     * 插槽标签直接引用持久化缓存中的只读数据，不做复制。
      */
-    private List<InstalledSlot> loadSlotsFromNBT(Player player) {
+    private PlayerSlotStore loadStore(Player player) {
         List<InstalledSlot> slots = new ArrayList<>();
+        Map<UUID, CompoundTag> orphans = new HashMap<>();
+        boolean legacyLayout = false;
 
         CompoundTag data = DataPersistenceManager.loadPlayerData(player);
         CompoundTag playerPersistent = player.getPersistentData();
@@ -255,7 +457,7 @@ public class ModificationManagerImpl implements ModificationManager {
         if ((data == null || !data.contains("installed_slots")) && playerPersistent.contains(LEGACY_SLOTS_KEY, Tag.TAG_LIST)) {
             try {
                 ListTag legacyList = playerPersistent.getList(LEGACY_SLOTS_KEY, Tag.TAG_COMPOUND);
-                CompoundTag migratedRoot = data == null ? new CompoundTag() : data.copy();
+                CompoundTag migratedRoot = data == null ? new CompoundTag() : DataPersistenceManager.shallowCopy(data);
                 CompoundTag newSlots = new CompoundTag();
                 for (int i = 0; i < legacyList.size(); i++) {
                     CompoundTag slotTag = legacyList.getCompound(i);
@@ -265,9 +467,9 @@ public class ModificationManagerImpl implements ModificationManager {
                 DataPersistenceManager.saveCompoundToPersistentStorage(player, migratedRoot);
                 playerPersistent.remove(LEGACY_SLOTS_KEY); // 清理旧键
                 data = migratedRoot;
-                System.out.println("[ModificationManagerImpl] 已迁移旧版改造数据 -> installed_slots, 槽位数: " + legacyList.size());
+                ArsenalGraft.LOGGER.info("已迁移旧版改造数据 -> installed_slots, 槽位数: {}", legacyList.size());
             } catch (Exception e) {
-                System.err.println("[ModificationManagerImpl] 迁移旧数据失败: " + e.getMessage());
+                ArsenalGraft.LOGGER.error("迁移旧数据失败", e);
             }
         }
 
@@ -277,35 +479,40 @@ public class ModificationManagerImpl implements ModificationManager {
                 try {
                     CompoundTag slotTag = slotsCompound.getCompound(key);
                     UUID slotId = UUID.fromString(slotTag.getString("slotId"));
+                    if (!key.equals(slotId.toString())) {
+                        legacyLayout = true;
+                    }
                     ResourceLocation templateId = ResourceLocation.tryParse(slotTag.getString("templateId"));
-                    boolean installed = slotTag.getBoolean("installed");
                     Optional<ModificationTemplate> templateOpt = getTemplate(templateId);
                     if (templateOpt.isEmpty()) {
-                        System.err.println("[ModificationManagerImpl] 找不到模板: " + templateId);
+                        // 保留原始数据，模板在之后的重载中恢复时重新挂载
+                        ArsenalGraft.LOGGER.warn("找不到模板，保留插槽原始数据: {}", templateId);
+                        orphans.put(slotId, slotTag);
                         continue;
                     }
-                    ModificationTemplate template = templateOpt.get();
-                    Map<String, IModificationComponent> components = new HashMap<>();
-                    for (Map.Entry<String, IModificationComponent> entry : template.getComponents().entrySet()) {
-                        components.put(entry.getKey(), entry.getValue().copy());
-                    }
-                    InstalledSlot slot = new InstalledSlot(slotId, template, components, installed);
-                    slot.deserializeNBT(slotTag);
-                    slots.add(slot);
+                    // 只解析插槽头，组件在第一次访问时才水合
+                    slots.add(new InstalledSlot(slotId, templateOpt.get(), slotTag));
                 } catch (Exception e) {
-                    System.err.println("[ModificationManagerImpl] 恢复插槽数据失败: " + e.getMessage());
-                    e.printStackTrace();
+                    ArsenalGraft.LOGGER.error("恢复插槽数据失败", e);
                 }
             }
         }
-        return slots;
+
+        PlayerSlotStore store = new PlayerSlotStore(player, slots, orphans);
+        if (legacyLayout) {
+            store.lock.lock();
+            try {
+                store.markFullRewrite();
+            } finally {
+                store.lock.unlock();
+            }
+        }
+        return store;
     }
     
     @Override
     public List<InstalledSlot> getInstalledSlotsByType(Player player, String slotType) {
-        return getAllInstalledSlots(player).stream()
-                .filter(slot -> slot.getTemplate().getSlotType().equals(slotType))
-                .collect(Collectors.toList());
+        return getSlotSnapshot(player).ofType(slotType);
     }
     
     @Override
@@ -326,74 +533,275 @@ public class ModificationManagerImpl implements ModificationManager {
             }
             
             // 发送同步事件（这里可以集成到现有的网络系统中）
-            System.out.println("[ModificationManagerImpl] 同步 " + playerSlots.size() + " 个改造到客户端: " + player.getName().getString());
+            ArsenalGraft.LOGGER.debug("同步 {} 个改造到客户端: {}", playerSlots.size(), player.getName().getString());
             
             // 注意：这里应该发送实际的网络包，但为了保持架构简洁，
             // 我们通过事件系统来通知网络层进行同步
             
         } catch (Exception e) {
-            System.err.println("[ModificationManagerImpl] 网络同步失败: " + e.getMessage());
+            ArsenalGraft.LOGGER.error("网络同步失败", e);
         }
     }
     
     @Override
     public void savePlayerData(Player player) {
-        List<InstalledSlot> slots = getAllInstalledSlots(player);
-        savePlayerSlots(player, slots);
+        PlayerSlotStore store = getStore(player);
+        store.lock.lock();
+        try {
+            store.setOwner(player);
+            store.markFullRewrite();
+        } finally {
+            store.lock.unlock();
+        }
+        flushStore(store);
+    }
+    
+    @Override
+    public void markSlotDirty(Player player, UUID slotId) {
+        PlayerSlotStore store = playerSlotsCache.get(player.getUUID());
+        if (store == null) {
+            return;
+        }
+        store.lock.lock();
+        try {
+            InstalledSlot slot = store.snapshot().getById(slotId);
+            if (slot != null) {
+                // 调用方可能绕过组件直接修改了状态，丢弃序列化缓存以保证写回最新内容
+                slot.invalidateSerializedCache();
+                store.setOwner(player);
+                store.markDirty(slotId);
+            }
+        } finally {
+            store.lock.unlock();
+        }
+    }
+    
+    @Override
+    public void flushDirty(Player player) {
+        PlayerSlotStore store = playerSlotsCache.get(player.getUUID());
+        if (store != null) {
+            store.setOwner(player);
+            flushStore(store);
+        }
+    }
+    
+    @Override
+    public int flushAllDirty() {
+        int flushed = 0;
+        for (PlayerSlotStore store : playerSlotsCache.values()) {
+            if (store.isDirty() && flushStore(store)) {
+                flushed++;
+            }
+        }
+        return flushed;
+    }
+    
+    @Override
+    public void unloadPlayer(Player player) {
+        UUID playerId = player.getUUID();
+        String playerName = player.getName().getString();
+        PlayerSlotStore store = playerSlotsCache.get(playerId);
+        if (store != null) {
+            store.setOwner(player);
+            flushStore(store);
+        }
+        // 不在主线程等待写入：该玩家的写入落盘后再回到主线程释放缓存，写入失败的存储会重新变脏而不被释放
+        PersistencePipeline.afterPlayerWrites(playerId, () -> {
+            if (store == null || evictIfClean(playerId, store)) {
+                DataPersistenceManager.evictPlayer(playerId);
+                ArsenalGraft.LOGGER.debug("已释放玩家插槽缓存: {}", playerName);
+            }
+        });
+    }
+    
+    @Override
+    public int evictIdlePlayers(Set<UUID> onlinePlayers, long idleMillis) {
+        long now = System.currentTimeMillis();
+        Map<UUID, PlayerSlotStore> idle = new HashMap<>();
+        for (Map.Entry<UUID, PlayerSlotStore> entry : playerSlotsCache.entrySet()) {
+            PlayerSlotStore store = entry.getValue();
+            if (onlinePlayers.contains(entry.getKey()) || now - store.lastAccess() < idleMillis) {
+                continue;
+            }
+            flushStore(store);
+            idle.put(entry.getKey(), store);
+        }
+        if (idle.isEmpty()) {
+            return 0;
+        }
+        // 写入失败的存储会重新变脏，等写入结束后回到主线程再判断能否淘汰
+        PersistencePipeline.afterPendingWrites(() -> {
+            int evicted = 0;
+            for (Map.Entry<UUID, PlayerSlotStore> entry : idle.entrySet()) {
+                if (evictIfClean(entry.getKey(), entry.getValue())) {
+                    evicted++;
+                }
+            }
+            if (evicted > 0) {
+                ArsenalGraft.LOGGER.debug("已淘汰离线玩家插槽缓存: {}", evicted);
+            }
+        });
+        return idle.size();
+    }
+    
+    @Override
+    public String getCacheStats() {
+        int slots = 0;
+        int dirty = 0;
+        for (PlayerSlotStore store : playerSlotsCache.values()) {
+            slots += store.snapshot().size();
+            if (store.isDirty()) {
+                dirty++;
+            }
+        }
+        return String.format("玩家缓存: %d, 插槽总数: %d, 待写回: %d, 模板: %d",
+                           playerSlotsCache.size(), slots, dirty, templates.size());
     }
     
-    private void savePlayerSlots(Player player, List<InstalledSlot> slots) {
-        // 将插槽序列化为CompoundTag的map形式并存入DataPersistenceManager
-        CompoundTag root = DataPersistenceManager.loadPlayerData(player);
-        if (root == null) {
-            root = new CompoundTag();
+    /**
+     * 没有未写回的变更时才移除缓存，写回失败或期间又有新变更的存储保留到下一轮
+     */
+    private boolean evictIfClean(UUID playerId, PlayerSlotStore store) {
+        store.lock.lock();
+        try {
+            return !store.isDirty() && playerSlotsCache.remove(playerId, store);
+        } finally {
+            store.lock.unlock();
+        }
+    }
+    
+    /**
+     * 将存储中累积的变更提交到异步持久化管线
+     *
+     * 主线程只取出脏标记并捕获需要写回的插槽标签（序列化结果是只读的共享实例，可以直接跨线程传递），
+     * 合并进 installed_slots、校验和保存都在 I/O 线程完成。同一玩家的写入按提交顺序执行。
+     *
+     * 只重新序列化脏插槽，并按 slotId 在 installed_slots 中原地更新/删除；
+     * 需要整体重写时（旧格式数据或显式保存）才重建整个 installed_slots。
+     *
+     * @return 是否提交了写入
+     */
+    private boolean flushStore(PlayerSlotStore store) {
+        store.lock.lock();
+        try {
+            PlayerSlotStore.PendingWrite pending = store.drain();
+            if (pending == null) {
+                return false;
+            }
+            Player player = store.owner();
+            SlotSnapshot snapshot = store.snapshot();
+            // 异步任务不访问玩家实体：基础数据必须已在缓存中，玩家ID和名称在主线程取出
+            DataPersistenceManager.ensureCached(player);
+            UUID playerId = player.getUUID();
+            String playerName = player.getName().getString();
+
+            boolean fullRewrite = pending.fullRewrite();
+            Map<UUID, CompoundTag> slotTags = new LinkedHashMap<>();
+            if (fullRewrite) {
+                for (InstalledSlot slot : snapshot.getSlots()) {
+                    // serializeNBT 已包含 slotId、templateId 和组件数据
+                    slotTags.put(slot.getSlotId(), slot.serializeNBT());
+                }
+                // 模板缺失的插槽原样写回
+                slotTags.putAll(store.orphans());
+            } else {
+                for (UUID dirtyId : pending.dirtySlots()) {
+                    InstalledSlot slot = snapshot.getById(dirtyId);
+                    if (slot != null) {
+                        slotTags.put(dirtyId, slot.serializeNBT());
+                    }
+                }
+            }
+            Set<UUID> removed = pending.removedSlots();
+            int total = snapshot.size();
+
+            PersistencePipeline.submit(playerId, () -> {
+                if (!writeSlots(playerId, playerName, fullRewrite, slotTags, removed)) {
+                    // 写回失败时下次整体重写，避免丢失变更
+                    store.lock.lock();
+                    try {
+                        store.markFullRewrite();
+                    } finally {
+                        store.lock.unlock();
+                    }
+                    return;
+                }
+                ArsenalGraft.LOGGER.debug("写回玩家数据文件，序列化插槽: {}，移除: {}，总数: {}",
+                        slotTags.size(), removed.size(), total);
+            });
+            return true;
+        } catch (Exception e) {
+            ArsenalGraft.LOGGER.error("写回玩家数据失败", e);
+            // 写回失败时下次整体重写，避免丢失变更
+            store.markFullRewrite();
+            return false;
+        } finally {
+            store.lock.unlock();
         }
+    }
 
-        CompoundTag slotsCompound = new CompoundTag();
-        for (int i = 0; i < slots.size(); i++) {
-            CompoundTag slotTag = slots.get(i).serializeNBT();
-            // serializeNBT already includes slotId, templateId and components
-            slotsCompound.put("slot_" + i, slotTag);
+    /**
+     * 在 I/O 线程把插槽标签合并进玩家根标签，提交到缓存并写入玩家数据文件
+     */
+    private static boolean writeSlots(UUID playerId, String playerName, boolean fullRewrite,
+                                      Map<UUID, CompoundTag> slotTags, Set<UUID> removed) {
+        // 缓存中的数据只读：根标签和 installed_slots 各浅复制一层，未变化的插槽标签直接共享
+        CompoundTag cached = DataPersistenceManager.getCachedData(playerId);
+        if (!fullRewrite && (cached == null || !cached.contains("installed_slots", Tag.TAG_COMPOUND))) {
+            // 缺少基础数据时无法增量更新，由调用方改为整体重写
+            return false;
         }
+        CompoundTag root = cached == null ? new CompoundTag() : DataPersistenceManager.shallowCopy(cached);
 
+        CompoundTag slotsCompound;
+        if (fullRewrite) {
+            slotsCompound = new CompoundTag();
+        } else {
+            slotsCompound = DataPersistenceManager.shallowCopy(root.getCompound("installed_slots"));
+            for (UUID slotId : removed) {
+                slotsCompound.remove(slotId.toString());
+            }
+        }
+        for (Map.Entry<UUID, CompoundTag> entry : slotTags.entrySet()) {
+            slotsCompound.put(entry.getKey().toString(), entry.getValue());
+        }
         root.put("installed_slots", slotsCompound);
 
-        // 使用统一的持久化管理器保存
-        DataPersistenceManager.saveCompoundToPersistentStorage(player, root);
-        System.out.println("[ModificationManagerImpl] 保存玩家数据（arsenalgraft_data），插槽数量: " + slots.size());
+        if (!DataPersistenceManager.commitCachedData(playerId, playerName, root)) {
+            return false;
+        }
+        return PlayerDataStore.write(playerId, root);
     }
     
     @Override
     public void loadPlayerData(Player player) {
         // 数据在getAllInstalledSlots中按需加载，这里不需要特别处理
         List<InstalledSlot> slots = getAllInstalledSlots(player);
-        System.out.println("[ModificationManagerImpl] 加载玩家数据，插槽数量: " + slots.size());
+        ArsenalGraft.LOGGER.debug("加载玩家数据，插槽数量: {}", slots.size());
     }
     
     /**
-     * 获取所有已注册的模板（用于调试和管理）
+     * 获取所有已注册的模板（不可变快照，用于调试和管理）
      */
     public Map<ResourceLocation, ModificationTemplate> getAllTemplates() {
-        dataLock.readLock().lock();
-        try {
-            return new HashMap<>(templates);
-        } finally {
-            dataLock.readLock().unlock();
-        }
+        return templates;
     }
     
     /**
      * 清理玩家数据（用于调试）
      */
     public void clearPlayerData(Player player) {
-        dataLock.writeLock().lock();
-        try {
-            UUID playerId = player.getUUID();
-            playerSlotsCache.remove(playerId);
-            player.getPersistentData().remove(LEGACY_SLOTS_KEY); // 清理旧实现遗留
-            System.out.println("[ModificationManagerImpl] 清理玩家数据: " + player.getName().getString());
-        } finally {
-            dataLock.writeLock().unlock();
+        UUID playerId = player.getUUID();
+        PlayerSlotStore store = playerSlotsCache.get(playerId);
+        if (store != null) {
+            store.lock.lock();
+            try {
+                playerSlotsCache.remove(playerId, store);
+            } finally {
+                store.lock.unlock();
+            }
         }
+        player.getPersistentData().remove(LEGACY_SLOTS_KEY); // 清理旧实现遗留
+        ArsenalGraft.LOGGER.debug("清理玩家数据: {}", player.getName().getString());
     }
 }
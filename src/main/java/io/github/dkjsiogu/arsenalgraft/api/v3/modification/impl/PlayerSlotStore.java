@@ -0,0 +1,191 @@
+package io.github.dkjsiogu.arsenalgraft.api.v3.modification.impl;
+
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.InstalledSlot;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.SlotSnapshot;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.entity.player.Player;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个玩家的已安装插槽存储
+ *
+ * 持有一个不可变的 {@link SlotSnapshot}，读取方直接访问 volatile 快照，不加锁也不复制。
+ * 写入方（安装/卸载）持有该玩家自己的锁，构建新快照后整体替换（写时复制），
+ * 不同玩家之间的写入互不阻塞。
+ *
+ * 同时记录自上次写盘以来变化过的插槽（脏标记），由写回任务合并后一次性持久化。
+ *
+ * 模板缺失的插槽不进入快照，其原始标签作为孤儿保留：整体重写时原样写回，
+ * 模板在之后的数据包重载中恢复时再重新挂载。
+ */
+class PlayerSlotStore {
+
+    // 该玩家插槽数据的写锁（读取快照不需要加锁；脏标记的读写需要持有）
+    final ReentrantLock lock = new ReentrantLock();
+
+    private volatile SlotSnapshot snapshot;
+
+    // 最近一次操作该存储的玩家实例，写回时用于定位持久化数据
+    private volatile Player owner;
+
+    // 待写回的变更（受 lock 保护）
+    private final Set<UUID> dirtySlots = new HashSet<>();
+    private final Set<UUID> removedSlots = new HashSet<>();
+    private boolean fullRewrite;
+    private volatile boolean dirty;
+
+    // 模板缺失的插槽原始标签（slotId -> NBT，受 lock 保护）
+    private final Map<UUID, CompoundTag> orphanSlots;
+
+    // 最近一次访问时间，用于淘汰离线玩家的缓存
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    PlayerSlotStore(Player owner, List<InstalledSlot> slots, Map<UUID, CompoundTag> orphanSlots) {
+        this.owner = owner;
+        this.snapshot = SlotSnapshot.of(slots);
+        this.orphanSlots = new HashMap<>(orphanSlots);
+    }
+
+    /**
+     * 当前快照（无锁读取）
+     */
+    SlotSnapshot snapshot() {
+        return snapshot;
+    }
+
+    Player owner() {
+        return owner;
+    }
+
+    void setOwner(Player owner) {
+        this.owner = owner;
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * 模板缺失的插槽原始标签，调用方需持有 {@link #lock}
+     */
+    Map<UUID, CompoundTag> orphans() {
+        return orphanSlots;
+    }
+
+    /**
+     * 直接发布新快照而不产生脏标记（模板重新绑定、孤儿插槽重新挂载），调用方需持有 {@link #lock}
+     */
+    void republish(SlotSnapshot next) {
+        snapshot = next;
+    }
+
+    /**
+     * 添加插槽并发布新快照，调用方需持有 {@link #lock}
+     */
+    void add(InstalledSlot slot) {
+        snapshot = snapshot.with(slot);
+        markDirty(slot.getSlotId());
+    }
+
+    /**
+     * 按 slotId 移除插槽并发布新快照，调用方需持有 {@link #lock}
+     *
+     * @return 被移除的插槽，不存在时返回null
+     */
+    InstalledSlot remove(UUID slotId) {
+        SlotSnapshot current = snapshot;
+        InstalledSlot slot = current.getById(slotId);
+        if (slot != null) {
+            snapshot = current.without(slotId);
+            dirtySlots.remove(slotId);
+            removedSlots.add(slotId);
+            dirty = true;
+        }
+        return slot;
+    }
+
+    /**
+     * 批量添加插槽并只发布一次新快照，调用方需持有 {@link #lock}
+     */
+    void addAll(List<InstalledSlot> slots) {
+        snapshot = snapshot.withAll(slots);
+        for (InstalledSlot slot : slots) {
+            markDirty(slot.getSlotId());
+        }
+    }
+
+    /**
+     * 批量移除插槽并只发布一次新快照，调用方需持有 {@link #lock}
+     */
+    void removeAll(Collection<UUID> slotIds) {
+        SlotSnapshot current = snapshot;
+        SlotSnapshot next = current.withoutAll(slotIds);
+        if (next == current) {
+            return;
+        }
+        snapshot = next;
+        for (UUID slotId : slotIds) {
+            dirtySlots.remove(slotId);
+            removedSlots.add(slotId);
+        }
+        dirty = true;
+    }
+
+    /**
+     * 标记插槽需要写回，调用方需持有 {@link #lock}
+     */
+    void markDirty(UUID slotId) {
+        dirtySlots.add(slotId);
+        removedSlots.remove(slotId);
+        dirty = true;
+    }
+
+    /**
+     * 标记下次写回时重写全部插槽（例如存储格式需要整理），调用方需持有 {@link #lock}
+     */
+    void markFullRewrite() {
+        fullRewrite = true;
+        dirty = true;
+    }
+
+    /**
+     * 是否有待写回的变更（无锁快速检查）
+     */
+    boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * 取出并清空待写回的变更，调用方需持有 {@link #lock}
+     *
+     * @return 待写回变更，没有变更时返回null
+     */
+    PendingWrite drain() {
+        if (!dirty) {
+            return null;
+        }
+        PendingWrite pending = new PendingWrite(Set.copyOf(dirtySlots), Set.copyOf(removedSlots), fullRewrite);
+        dirtySlots.clear();
+        removedSlots.clear();
+        fullRewrite = false;
+        dirty = false;
+        return pending;
+    }
+
+    /**
+     * 一次写回需要处理的变更
+     */
+    record PendingWrite(Set<UUID> dirtySlots, Set<UUID> removedSlots, boolean fullRewrite) {}
+}
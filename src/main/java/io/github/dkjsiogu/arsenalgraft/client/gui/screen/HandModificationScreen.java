@@ -14,7 +14,6 @@ import net.minecraft.world.entity.player.Player;
 
 import javax.annotation.Nonnull;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 手部改造列表界面：列出已安装的 hand 类型模板 (normal_hand / extra_hand 等)。
@@ -54,11 +53,8 @@ public class HandModificationScreen extends Screen {
     }
 
     private void loadSlots() {
-        List<InstalledSlot> all = ArsenalGraftAPI.getAllModifications(player);
-        handSlots = all.stream().filter(s -> {
-            String slotType = s.getTemplate().getSlotType();
-            return "hand".equals(slotType);
-        }).collect(Collectors.toList());
+        // 快照按槽位类型预先建立了索引，直接取出手部插槽
+        handSlots = ArsenalGraftAPI.getModificationSnapshot(player).ofType("hand");
     }
 
     private void openSlot(InstalledSlot slot) {
@@ -203,13 +203,12 @@ public class ModificationMainScreen extends Screen {
         // 先列出玩家已安装的对应 slotType 的所有实例（可能有多个）
         var player = Minecraft.getInstance().player;
         if (player != null && targetSlotType != null) {
-            var installedSlots = ArsenalGraftAPI.getAllModifications(player);
+            var installedSlots = ArsenalGraftAPI.getModificationSnapshot(player).ofType(targetSlotType);
             // 计数同一种模板出现次数
             java.util.Map<ResourceLocation, Integer> counter = new java.util.HashMap<>();
             for (InstalledSlot slot : installedSlots) {
                 ModificationTemplate tpl = slot.getTemplate();
                 if (tpl == null) continue;
-                if (!targetSlotType.equals(tpl.getSlotType())) continue;
                 int idx = counter.getOrDefault(tpl.getId(), 0) + 1;
                 counter.put(tpl.getId(), idx);
                 // 条目文本：名称 #序号
@@ -9,13 +9,20 @@ import net.minecraft.commands.arguments.ResourceLocationArgument;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.entity.player.Player;
 import io.github.dkjsiogu.arsenalgraft.api.v3.ArsenalGraftAPI;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationManager;
+import io.github.dkjsiogu.arsenalgraft.core.service.ServiceRegistry;
+import io.github.dkjsiogu.arsenalgraft.core.tick.SlotTickEngine;
+import io.github.dkjsiogu.arsenalgraft.data.DataPersistenceManager;
+import io.github.dkjsiogu.arsenalgraft.data.PersistencePipeline;
+import io.github.dkjsiogu.arsenalgraft.data.PlayerDataMigrator;
 
 import java.util.List;
 
 /**
- * 统一测试命令: /arsena list|check|grant|remove
+ * 统一测试命令: /arsena list|debug|check|grant|remove|admin
  */
 public class ArsenaCommand {
 
@@ -35,6 +42,7 @@ public class ArsenaCommand {
             )
             .then(Commands.literal("debug")
                 .then(Commands.literal("templates").executes(ArsenaCommand::debugTemplates))
+                .then(Commands.literal("cache").requires(src -> src.hasPermission(2)).executes(ArsenaCommand::debugCache))
             )
             .then(Commands.literal("check")
                 .then(Commands.argument("mod", ResourceLocationArgument.id())
@@ -50,6 +58,9 @@ public class ArsenaCommand {
                     .then(Commands.argument("pl ayer", EntityArgument.player()).executes(ArsenaCommand::grantOther))
                 )
             )
+            .then(Commands.literal("admin").requires(src -> src.hasPermission(4))
+                .then(Commands.literal("migrate").executes(ArsenaCommand::adminMigrate))
+            )
             .then(Commands.literal("remove").requires(src -> src.hasPermission(2))
                 .then(Commands.argument("mod", ResourceLocationArgument.id())
                     .suggests(MOD_SUGGESTER)
@@ -187,4 +198,41 @@ public class ArsenaCommand {
             return 0;
         }
     }
+
+    // 调试: 输出插槽缓存与持久化缓存的统计信息
+    private static int debugCache(CommandContext<CommandSourceStack> ctx) {
+        try {
+            CommandSourceStack src = ctx.getSource();
+            ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+            String slotStats = modManager != null ? modManager.getCacheStats() : "ModificationManager 不可用";
+            String dataStats = DataPersistenceManager.getCacheStats();
+            src.sendSuccess(() -> Component.literal("[debug] " + slotStats), false);
+            src.sendSuccess(() -> Component.literal("[debug] " + dataStats), false);
+            src.sendSuccess(() -> Component.literal("[debug] " + PersistencePipeline.getStats()), false);
+            src.sendSuccess(() -> Component.literal("[debug] tick 活跃玩家: " + SlotTickEngine.getActiveCount() + ", 时间轮任务: " + SlotTickEngine.getScheduledCount()), false);
+            return 1;
+        } catch (Exception e) {
+            ctx.getSource().sendFailure(Component.literal("debug 执行失败"));
+            return 0;
+        }
+    }
+
+    // 管理: 并行迁移并整理所有离线玩家的数据，完成后回报统计
+    private static int adminMigrate(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack src = ctx.getSource();
+        MinecraftServer server = src.getServer();
+        src.sendSuccess(() -> Component.literal("开始迁移玩家数据（需要没有玩家在线）..."), true);
+        PlayerDataMigrator.migrateAllAsync(server).whenComplete((result, error) -> server.execute(() -> {
+            if (error != null) {
+                src.sendFailure(Component.literal("玩家数据迁移失败: " + error.getMessage()));
+            } else if (result == null) {
+                src.sendFailure(Component.literal("已有迁移正在进行"));
+            } else if (result.refused()) {
+                src.sendFailure(Component.literal(result.summary()));
+            } else {
+                src.sendSuccess(() -> Component.literal(result.summary()), true);
+            }
+        }));
+        return 1;
+    }
 }
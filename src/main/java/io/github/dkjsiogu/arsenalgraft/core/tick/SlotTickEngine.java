@@ -0,0 +1,300 @@
+package io.github.dkjsiogu.arsenalgraft.core.tick;
+
+import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
+import io.github.dkjsiogu.arsenalgraft.api.v3.component.IModificationComponent;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.InstalledSlot;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationManager;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.SlotSnapshot;
+import io.github.dkjsiogu.arsenalgraft.core.service.ServiceRegistry;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务器端插槽 tick 驱动
+ *
+ * 每个维度维护一个活跃集合，只包含拥有可 tick 组件的玩家；
+ * 只有被动改造（物品栏、属性）的玩家不会进入集合，每tick开销为零。
+ *
+ * 可 tick 组件按 {@link IModificationComponent#getTickInterval()} 调度到一个哈希时间轮上，
+ * 首次触发时间按插槽ID散列偏移，使大量玩家的同类组件均匀分布在不同tick，避免周期性尖峰。
+ * 每个tick只处理当前桶中的任务。
+ *
+ * 玩家在登录、重生、切换维度时重新登记；安装插槽和模板重新绑定由 ModificationManager 直接登记
+ * （不依赖授予事件，任何安装路径都会覆盖到）。旧任务不主动删除，
+ * 而是通过代数（generation）在到期时惰性丢弃。任务到期时若发现插槽快照版本变化（安装/卸载），
+ * 则重新计算该玩家的任务。
+ *
+ * 所有状态只在服务器主线程访问。
+ */
+@Mod.EventBusSubscriber(modid = ArsenalGraft.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class SlotTickEngine {
+
+    // 时间轮桶数（2的幂），超过该间隔的任务按到期tick比较，多转几圈
+    static final int WHEEL_SIZE = 128;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static final Map<ResourceKey<Level>, LevelWheel> wheels = new ConcurrentHashMap<>();
+
+    /**
+     * 单个维度的时间轮及活跃玩家
+     */
+    static final class LevelWheel {
+        long currentTick;
+        @SuppressWarnings("unchecked")
+        List<TickTask>[] buckets = new List[WHEEL_SIZE];
+        List<TickTask> spare = new ArrayList<>();
+        final List<TickTask> due = new ArrayList<>();
+        final Map<UUID, ActiveEntry> active = new HashMap<>();
+        int scheduled;
+
+        static int bucketOf(long tick) {
+            return (int) (tick & WHEEL_MASK);
+        }
+
+        void schedule(TickTask task) {
+            int index = bucketOf(task.dueTick);
+            List<TickTask> bucket = buckets[index];
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                buckets[index] = bucket;
+            }
+            bucket.add(task);
+            scheduled++;
+        }
+
+        /**
+         * 推进一个tick并取出当前桶中已到期的任务，尚未到期的任务（间隔大于时间轮长度）放回桶中
+         *
+         * 返回的列表在下一次调用前有效；处理期间重新调度的任务进入新的桶，不会出现在本次结果中。
+         */
+        List<TickTask> advance() {
+            long now = ++currentTick;
+            int index = bucketOf(now);
+            List<TickTask> bucket = buckets[index];
+            due.clear();
+            if (bucket == null || bucket.isEmpty()) {
+                return due;
+            }
+
+            // 换入空桶后再分拣，重新调度的任务可能落回同一个桶
+            buckets[index] = spare;
+            scheduled -= bucket.size();
+            for (TickTask task : bucket) {
+                if (task.dueTick > now) {
+                    schedule(task);
+                } else {
+                    due.add(task);
+                }
+            }
+            bucket.clear();
+            spare = bucket;
+            return due;
+        }
+    }
+
+    /**
+     * 单个活跃玩家：玩家实例、当前任务代数以及对应的快照版本号
+     */
+    static final class ActiveEntry {
+        final ServerPlayer player;
+        long version;
+        int generation;
+
+        ActiveEntry(ServerPlayer player) {
+            this.player = player;
+        }
+    }
+
+    /**
+     * 时间轮上的一个组件任务
+     */
+    static final class TickTask {
+        final ActiveEntry entry;
+        final int generation;
+        final InstalledSlot slot;
+        final IModificationComponent component;
+        final int interval;
+        long dueTick;
+
+        TickTask(ActiveEntry entry, InstalledSlot slot, IModificationComponent component, int interval, long dueTick) {
+            this.entry = entry;
+            this.generation = entry.generation;
+            this.slot = slot;
+            this.component = component;
+            this.interval = interval;
+            this.dueTick = dueTick;
+        }
+
+        /**
+         * 玩家被移出或重新调度后，旧代数的任务视为已取消
+         */
+        boolean isCancelled() {
+            return generation != entry.generation;
+        }
+    }
+
+    /**
+     * 登记玩家：移出之前所在维度，拥有可 tick 组件时在当前维度的时间轮上调度
+     */
+    public static void track(ServerPlayer player) {
+        UUID playerId = player.getUUID();
+        untrack(playerId);
+
+        ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+        if (modManager == null) return;
+
+        LevelWheel wheel = wheels.computeIfAbsent(player.level().dimension(), k -> new LevelWheel());
+        ActiveEntry entry = new ActiveEntry(player);
+        if (scheduleEntry(wheel, entry, modManager.getSlotSnapshot(player))) {
+            wheel.active.put(playerId, entry);
+        }
+    }
+
+    public static void untrack(UUID playerId) {
+        for (LevelWheel wheel : wheels.values()) {
+            ActiveEntry entry = wheel.active.remove(playerId);
+            if (entry != null) {
+                // 旧任务在到期时惰性丢弃
+                entry.generation++;
+            }
+        }
+    }
+
+    /**
+     * 当前活跃玩家数量（调试用）
+     */
+    public static int getActiveCount() {
+        int count = 0;
+        for (LevelWheel wheel : wheels.values()) {
+            count += wheel.active.size();
+        }
+        return count;
+    }
+
+    /**
+     * 时间轮上的任务数量，包含尚未丢弃的过期任务（调试用）
+     */
+    public static int getScheduledCount() {
+        int count = 0;
+        for (LevelWheel wheel : wheels.values()) {
+            count += wheel.scheduled;
+        }
+        return count;
+    }
+
+    /**
+     * 按快照为玩家调度所有可 tick 组件
+     *
+     * @return 是否至少调度了一个任务
+     */
+    private static boolean scheduleEntry(LevelWheel wheel, ActiveEntry entry, SlotSnapshot snapshot) {
+        entry.generation++;
+        entry.version = snapshot.getVersion();
+        boolean any = false;
+        for (InstalledSlot slot : snapshot.getSlots()) {
+            if (!slot.isTickable()) continue;
+            int slotHash = slot.getSlotId().hashCode();
+            // 按模板原型筛选可 tick 的组件键，只水合这些组件（其余组件保持延迟水合）
+            for (Map.Entry<String, IModificationComponent> prototype : slot.getTemplate().getComponents().entrySet()) {
+                if (!prototype.getValue().isTickable()) continue;
+                IModificationComponent component = slot.getComponent(prototype.getKey(), IModificationComponent.class);
+                if (component == null || !component.isTickable()) continue;
+                int interval = Math.max(1, component.getTickInterval());
+                // 按插槽ID和组件键散列出首次触发偏移，把同间隔的任务分散到不同的桶
+                int offset = Math.floorMod(slotHash * 31 + prototype.getKey().hashCode(), interval);
+                wheel.schedule(new TickTask(entry, slot, component, interval, wheel.currentTick + 1 + offset));
+                any = true;
+            }
+        }
+        return any;
+    }
+
+    @SubscribeEvent
+    public static void onLevelTick(TickEvent.LevelTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || !(event.level instanceof ServerLevel level)) return;
+
+        LevelWheel wheel = wheels.get(level.dimension());
+        if (wheel == null) return;
+
+        ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+        if (modManager == null) return;
+
+        List<TickTask> due = wheel.advance();
+        long now = wheel.currentTick;
+        for (TickTask task : due) {
+            if (task.isCancelled()) {
+                continue; // 已被取消或重新调度
+            }
+
+            ActiveEntry entry = task.entry;
+
+            ServerPlayer player = entry.player;
+            // 玩家已离开该维度或实体已被替换（重生/切换维度时会重新登记）
+            if (player.isRemoved() || player.level() != level) {
+                if (wheel.active.remove(player.getUUID(), entry)) {
+                    entry.generation++;
+                }
+                continue;
+            }
+
+            SlotSnapshot snapshot = modManager.getSlotSnapshot(player);
+            if (snapshot.getVersion() != entry.version) {
+                // 插槽发生变化，按新快照重新调度（旧任务惰性丢弃）
+                if (!scheduleEntry(wheel, entry, snapshot)) {
+                    wheel.active.remove(player.getUUID(), entry);
+                }
+                continue;
+            }
+
+            try {
+                if (task.slot.isInstalled() && task.component.isActive()) {
+                    task.component.tick(player);
+                }
+            } catch (Exception e) {
+                ArsenalGraft.LOGGER.error("插槽tick失败: player={}, slot={}", player.getName().getString(), task.slot.getSlotId(), e);
+            }
+
+            task.dueTick = now + task.interval;
+            wheel.schedule(task);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) track(player);
+    }
+
+    @SubscribeEvent
+    public static void onPlayerRespawn(PlayerEvent.PlayerRespawnEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) track(player);
+    }
+
+    @SubscribeEvent
+    public static void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) track(player);
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        untrack(event.getEntity().getUUID());
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        wheels.clear();
+    }
+}
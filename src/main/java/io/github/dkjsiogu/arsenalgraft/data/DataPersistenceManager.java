@@ -4,12 +4,15 @@ import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationManager;
 import io.github.dkjsiogu.arsenalgraft.core.service.ServiceRegistry;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.player.Player;
-import net.minecraftforge.common.util.INBTSerializable;
 
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -18,6 +21,9 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * 
  * 负责Arsenal Graft数据的保存、加载和同步
  * 提供线程安全的数据访问和完整的错误处理
+ * 
+ * 数据保存在 {@link PlayerDataStore} 管理的独立文件中；旧版本挂在玩家持久化数据上的
+ * arsenalgraft_data 会在首次加载时迁移过去。
  */
 public class DataPersistenceManager {
     public static final String DATA_KEY = "arsenalgraft_data";
@@ -41,6 +47,8 @@ public class DataPersistenceManager {
     /**
      * 保存玩家数据
      * 
+     * 交给改造管理器整体重写并提交到异步持久化管线，调用线程只负责取出插槽状态。
+     * 
      * @param player 玩家
      * @param force 是否强制保存（忽略同步间隔）
      */
@@ -55,7 +63,6 @@ public class DataPersistenceManager {
             }
         }
         
-    dataLock.writeLock().lock();
         try {
             ModificationManager modManager = ServiceRegistry.getInstance()
                 .getService(ModificationManager.class);
@@ -63,46 +70,74 @@ public class DataPersistenceManager {
                 ArsenalGraft.LOGGER.error("无法获取ModificationManager，保存失败");
                 return false;
             }
-            
-            // 创建数据标签
-            CompoundTag playerData = new CompoundTag();
-            playerData.putString("player_id", playerId);
-            playerData.putString("player_name", player.getName().getString());
-            playerData.putLong("last_save", System.currentTimeMillis());
-            playerData.putInt("arsenalgraft_version", DataVersionManager.CURRENT_VERSION);
-            
-            // 保存已安装插槽数据
-            CompoundTag slotsData = new CompoundTag();
-            var installedSlots = modManager.getAllInstalledSlots(player);
-            
-            for (int i = 0; i < installedSlots.size(); i++) {
-                var slot = installedSlots.get(i);
-                if (slot instanceof INBTSerializable) {
-                    slotsData.put("slot_" + i, ((INBTSerializable<CompoundTag>) slot).serializeNBT());
-                }
-            }
-            
-            playerData.put("installed_slots", slotsData);
 
             // 引用常量以避免未使用警告（仅用于调试输出）
             ArsenalGraft.LOGGER.debug("DataPersistenceManager config: maxRetries={}, backupKeep={} ", MAX_RETRIES, BACKUP_KEEP_COUNT);
             
-            // 数据验证
-            if (!DataVersionManager.validateData(playerData, player)) {
-                ArsenalGraft.LOGGER.error("玩家 {} 的数据验证失败，取消保存", player.getName().getString());
-                return false;
-            }
-            
-            // 缓存数据
-            playerDataCache.put(playerId, playerData);
+            modManager.savePlayerData(player);
             lastSyncTime.put(playerId, System.currentTimeMillis());
-            
-            ArsenalGraft.LOGGER.debug("玩家 {} 的数据保存成功", player.getName().getString());
             return true;
             
         } catch (Exception e) {
             ArsenalGraft.LOGGER.error("保存玩家 {} 的数据时出错", player.getName().getString(), e);
             return false;
+        }
+    }
+    
+    /**
+     * 确保玩家数据已进入缓存（主线程调用）
+     * 
+     * 异步写入任务只基于缓存工作，不读取文件或玩家实体，提交前先在主线程完成加载。
+     */
+    public static void ensureCached(Player player) {
+        String key = player.getUUID().toString();
+        if (!playerDataCache.containsKey(key)) {
+            // 新玩家没有持久化数据时缓存默认数据
+            playerDataCache.putIfAbsent(key, loadPlayerData(player));
+        }
+    }
+    
+    /**
+     * 取得缓存中的玩家数据（只读，不复制；供异步写入任务使用，不访问玩家实体）
+     * 
+     * @return 缓存的标签，缓存中没有时返回null
+     */
+    public static CompoundTag getCachedData(UUID playerId) {
+        return playerDataCache.get(playerId.toString());
+    }
+    
+    /**
+     * 浅复制复合标签：只复制这一层的映射，子标签与原标签共享
+     * 
+     * 写入方基于只读的缓存数据构建新版本时使用：需要修改的那一层逐层浅复制，
+     * 未修改的子树（例如未变化插槽中的物品）直接共享，不做深复制。
+     */
+    public static CompoundTag shallowCopy(CompoundTag tag) {
+        CompoundTag copy = new CompoundTag();
+        for (String key : tag.getAllKeys()) {
+            copy.put(key, tag.get(key));
+        }
+        return copy;
+    }
+    
+    /**
+     * 校验并提交新的玩家数据到缓存（可在 I/O 线程调用，不访问玩家实体）
+     * 
+     * 数据只在进入缓存时校验一次；提交后该标签（以及它引用的所有子标签）归缓存所有，调用方不得再修改。
+     * 
+     * @return 校验是否通过；未通过时缓存保持不变
+     */
+    public static boolean commitCachedData(UUID playerId, String playerName, CompoundTag data) {
+        if (!DataVersionManager.validateData(data, playerId, playerName)) {
+            ArsenalGraft.LOGGER.error("玩家 {} 的数据验证失败，取消保存", playerName);
+            return false;
+        }
+        dataLock.writeLock().lock();
+        try {
+            String key = playerId.toString();
+            playerDataCache.put(key, data);
+            lastSyncTime.put(key, System.currentTimeMillis());
+            return true;
         } finally {
             dataLock.writeLock().unlock();
         }
@@ -110,34 +145,45 @@ public class DataPersistenceManager {
     
     /**
      * 加载玩家数据
+     * 
+     * 返回的标签是缓存中的共享实例（缓存命中时既不复制也不重新校验），调用方只能读取；
+     * 需要修改时请基于 {@link #shallowCopy} 或 {@link CompoundTag#copy()} 构建新标签，再通过
+     * {@link #saveCompoundToPersistentStorage} 或 {@link #commitCachedData} 提交。
      */
     public static CompoundTag loadPlayerData(Player player) {
         String playerId = player.getUUID().toString();
         
+        // 首先检查缓存：进入缓存的数据都已校验过
+        CompoundTag cachedData = playerDataCache.get(playerId);
+        if (cachedData != null) {
+            return cachedData;
+        }
+        
         dataLock.readLock().lock();
         try {
-            // 首先检查缓存
-            CompoundTag cachedData = playerDataCache.get(playerId);
-            if (cachedData != null) {
-                // 验证缓存数据
-                if (DataVersionManager.validateData(cachedData, player)) {
-                    return cachedData.copy();
-                } else {
-                    // 缓存数据无效，清除
-                    playerDataCache.remove(playerId);
-                }
-            }
             
-            // 从持久化存储加载
+            // 从独立数据文件加载，没有时迁移玩家实体上的旧数据
             CompoundTag data = loadFromPersistentStorage(player);
+            boolean fromPlayerTag = false;
+            if (data == null) {
+                data = loadFromPlayerTag(player);
+                fromPlayerTag = data != null;
+                if (fromPlayerTag) {
+                    // 玩家实体上的标签不归缓存所有，进入缓存前复制一次
+                    data = data.copy();
+                }
+            }
             if (data != null) {
                 // 升级数据版本
                 data = DataVersionManager.upgradeData(data);
                 
                 // 验证数据
                 if (DataVersionManager.validateData(data, player)) {
-                    // 缓存有效数据
-                    playerDataCache.put(playerId, data.copy());
+                    // 缓存有效数据（文件读出的标签由缓存独占，无需复制）
+                    playerDataCache.put(playerId, data);
+                    if (fromPlayerTag) {
+                        migrateToDataFile(player, data);
+                    }
                     return data;
                 } else {
                     ArsenalGraft.LOGGER.warn("玩家 {} 的持久化数据无效", player.getName().getString());
@@ -156,15 +202,11 @@ public class DataPersistenceManager {
     }
     
     /**
-     * 从持久化存储加载数据
-     * 这里使用玩家的持久化数据标签作为简化实现
+     * 从独立的玩家数据文件加载
      */
     private static CompoundTag loadFromPersistentStorage(Player player) {
         try {
-            CompoundTag persistentData = player.getPersistentData();
-            if (persistentData.contains(DATA_KEY)) {
-                return persistentData.getCompound(DATA_KEY);
-            }
+            return PlayerDataStore.read(player.getUUID());
         } catch (Exception e) {
             ArsenalGraft.LOGGER.error("从持久化存储加载数据失败", e);
         }
@@ -172,30 +214,64 @@ public class DataPersistenceManager {
     }
     
     /**
-     * 保存到持久化存储
+     * 读取旧版本挂在玩家持久化数据上的 arsenalgraft_data
+     */
+    private static CompoundTag loadFromPlayerTag(Player player) {
+        CompoundTag persistentData = player.getPersistentData();
+        if (persistentData.contains(DATA_KEY, Tag.TAG_COMPOUND)) {
+            return persistentData.getCompound(DATA_KEY);
+        }
+        return null;
+    }
+    
+    /**
+     * 把旧数据写入独立数据文件，写入成功后再从玩家持久化数据中移除（失败时保留旧数据，下次登录重试）
+     * 
+     * I/O 线程和收尾任务都不持有玩家实体：写入完成时玩家可能已登出或重生（重生会创建新实体），
+     * 收尾时按 UUID 重新查找在线玩家，找不到则保留旧数据，下次登录再清理。
+     */
+    private static void migrateToDataFile(Player player, CompoundTag data) {
+        UUID playerId = player.getUUID();
+        String playerName = player.getName().getString();
+        MinecraftServer server = player.getServer();
+        PersistencePipeline.submit(playerId, () -> {
+            if (PlayerDataStore.write(playerId, data)) {
+                ArsenalGraft.LOGGER.info("已将玩家 {} 的改造数据迁移到独立数据文件", playerName);
+                PersistencePipeline.publishOnMainThread(() -> {
+                    ServerPlayer current = server == null ? null : server.getPlayerList().getPlayer(playerId);
+                    if (current != null) {
+                        current.getPersistentData().remove(DATA_KEY);
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * 保存到持久化存储：更新缓存并提交文件写入（标签的所有权转移给缓存）
      */
     private static void saveToPersistentStorage(Player player, CompoundTag data) {
         try {
-            CompoundTag persistentData = player.getPersistentData();
-            persistentData.put(DATA_KEY, data);
-            // 更新缓存
-            try {
-                playerDataCache.put(player.getUUID().toString(), data.copy());
-                lastSyncTime.put(player.getUUID().toString(), System.currentTimeMillis());
-            } catch (Exception ignored) {}
+            String key = player.getUUID().toString();
+            playerDataCache.put(key, data);
+            lastSyncTime.put(key, System.currentTimeMillis());
+            UUID playerId = player.getUUID();
+            PersistencePipeline.submit(playerId, () -> PlayerDataStore.write(playerId, data));
         } catch (Exception e) {
             ArsenalGraft.LOGGER.error("保存到持久化存储失败", e);
         }
     }
 
     /**
-     * 公开的保存方法：直接写入arsenalgraft_data并更新缓存
+     * 公开的保存方法：更新缓存并异步写入玩家数据文件
+     * 
+     * 传入的标签归缓存所有，调用方之后不得再修改。
      */
     public static void saveCompoundToPersistentStorage(Player player, CompoundTag data) {
         dataLock.writeLock().lock();
         try {
             saveToPersistentStorage(player, data);
-            ArsenalGraft.LOGGER.debug("已将arsenalgraft_data保存到玩家持久化存储: {}", player.getName().getString());
+            ArsenalGraft.LOGGER.debug("已提交arsenalgraft_data写入: {}", player.getName().getString());
         } catch (Exception e) {
             ArsenalGraft.LOGGER.error("保存arsenalgraft_data失败: {}", e.getMessage(), e);
         } finally {
@@ -261,30 +337,48 @@ public class DataPersistenceManager {
     }
     
     /**
-     * 清理过期的缓存数据
+     * 释放单个玩家的缓存（登出时调用），数据本身仍保存在玩家数据文件中
      */
-    public static void cleanupCache() {
+    public static void evictPlayer(UUID playerId) {
         dataLock.writeLock().lock();
         try {
-            long currentTime = System.currentTimeMillis();
-            long maxAge = 300000; // 5分钟
-            
-            lastSyncTime.entrySet().removeIf(entry -> 
-                currentTime - entry.getValue() > maxAge);
-                
-            // 同时清理对应的数据缓存
-            for (String playerId : lastSyncTime.keySet()) {
-                if (!playerDataCache.containsKey(playerId)) {
-                    lastSyncTime.remove(playerId);
-                }
-            }
+            String key = playerId.toString();
+            playerDataCache.remove(key);
+            lastSyncTime.remove(key);
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 清理缓存：移除所有离线玩家的数据缓存
+     *
+     * @param onlinePlayers 当前在线玩家
+     * @return 被移除的条目数量
+     */
+    public static int cleanupCache(Set<UUID> onlinePlayers) {
+        dataLock.writeLock().lock();
+        try {
+            int before = playerDataCache.size();
+            playerDataCache.keySet().removeIf(playerId -> !isOnline(playerId, onlinePlayers));
+            lastSyncTime.keySet().removeIf(playerId -> !playerDataCache.containsKey(playerId));
+            int removed = before - playerDataCache.size();
             
-            ArsenalGraft.LOGGER.debug("缓存清理完成");
+            ArsenalGraft.LOGGER.debug("缓存清理完成，移除: {}", removed);
+            return removed;
         } finally {
             dataLock.writeLock().unlock();
         }
     }
     
+    private static boolean isOnline(String playerId, Set<UUID> onlinePlayers) {
+        try {
+            return onlinePlayers.contains(UUID.fromString(playerId));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
     /**
      * 强制保存所有缓存的数据
      */
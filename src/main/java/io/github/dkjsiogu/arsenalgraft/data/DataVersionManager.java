@@ -6,6 +6,7 @@ import net.minecraft.world.entity.player.Player;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
@@ -129,10 +130,17 @@ public class DataVersionManager {
      * 验证数据的完整性
      */
     public static boolean validateData(CompoundTag data, Player player) {
+        return validateData(data, player.getUUID(), player.getName().getString());
+    }
+    
+    /**
+     * 验证数据的完整性（不需要玩家实体，离线迁移时使用）
+     */
+    public static boolean validateData(CompoundTag data, UUID playerId, String playerName) {
         try {
             // 基础验证
             if (data == null) {
-                ArsenalGraft.LOGGER.warn("玩家 {} 的数据为null", player.getName().getString());
+                ArsenalGraft.LOGGER.warn("玩家 {} 的数据为null", playerName);
                 return false;
             }
             
@@ -140,28 +148,28 @@ public class DataVersionManager {
             int version = data.getInt("arsenalgraft_version");
             if (version <= 0 || version > CURRENT_VERSION) {
                 ArsenalGraft.LOGGER.warn("玩家 {} 的数据版本无效: {}", 
-                                       player.getName().getString(), version);
+                                       playerName, version);
                 return false;
             }
             
             // 检查必要字段
             if (!data.contains("player_id") || !data.contains("installed_slots")) {
-                ArsenalGraft.LOGGER.warn("玩家 {} 的数据缺少必要字段", player.getName().getString());
+                ArsenalGraft.LOGGER.warn("玩家 {} 的数据缺少必要字段", playerName);
                 return false;
             }
             
             // 验证玩家ID
             String dataPlayerId = data.getString("player_id");
-            if (!dataPlayerId.equals(player.getUUID().toString())) {
+            if (!dataPlayerId.equals(playerId.toString())) {
                 ArsenalGraft.LOGGER.warn("玩家 {} 的数据ID不匹配: {} vs {}", 
-                                       player.getName().getString(), dataPlayerId, player.getUUID());
+                                       playerName, dataPlayerId, playerId);
                 return false;
             }
             
             return true;
             
         } catch (Exception e) {
-            ArsenalGraft.LOGGER.error("验证玩家 {} 的数据时出错", player.getName().getString(), e);
+            ArsenalGraft.LOGGER.error("验证玩家 {} 的数据时出错", playerName, e);
             return false;
         }
     }
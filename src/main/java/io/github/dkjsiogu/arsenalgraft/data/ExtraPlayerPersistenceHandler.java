@@ -30,7 +30,10 @@ public class ExtraPlayerPersistenceHandler {
             ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
             if (modManager != null) {
                 // 确保菜单写回 (如果 GUI 正在开着 removed 逻辑已触发, 此处只是兜底)
-                modManager.savePlayerData(player);
+                // 只写回累积的脏插槽，写入落盘后再释放该玩家的缓存
+                modManager.unloadPlayer(player);
+            } else {
+                DataPersistenceManager.evictPlayer(player.getUUID());
             }
         } catch (Exception ignored) {}
     }
@@ -0,0 +1,367 @@
+package io.github.dkjsiogu.arsenalgraft.data;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 插槽数据的紧凑二进制编码
+ *
+ * 组件仍然以 NBT 序列化自身，这里只在落盘和网络同步的边界上把插槽标签换成更紧凑的形式，
+ * 解码结果与原来的插槽标签完全一致（延迟水合和旧的读取逻辑不受影响）：
+ * <pre>
+ *   版本号          1 字节
+ *   字符串常量池    模板ID、组件键、componentType、物品ID 各只写一次，之后以变长整数下标引用
+ *   插槽            slotId 写成两个 long，templateId 和 installed 写成下标和标志位
+ *   组件            组件键、componentType 写成下标，active 并入标志位
+ *   物品栏          物品写成 物品ID下标 + 数量 + 可选的物品标签
+ *   其余字段        原样写成 NBT
+ * </pre>
+ * 结构不符合预期的插槽（例如 slotId 无法解析）整体按 NBT 写入，保证任何输入都能无损还原。
+ *
+ * 物品ID写成常量池中的字符串而不是注册表的数字ID：数字ID随模组组合和加载顺序变化，
+ * 换一套整合包或增删模组后读回的物品就会错位；常量池已经保证每种物品ID只写一次。
+ */
+public final class ModificationCodec {
+
+    public static final byte VERSION = 1;
+
+    // 插槽标志位
+    private static final int SLOT_INSTALLED = 1;
+    private static final int SLOT_HAS_REST = 1 << 1;
+    private static final int SLOT_RAW = 1 << 7;
+
+    // 组件标志位
+    private static final int COMPONENT_ACTIVE = 1;
+    private static final int COMPONENT_HAS_ACTIVE = 1 << 1;
+    private static final int COMPONENT_HAS_TYPE = 1 << 2;
+    private static final int COMPONENT_HAS_INVENTORY = 1 << 3;
+    private static final int COMPONENT_HAS_REST = 1 << 4;
+
+    private static final Set<String> SLOT_KEYS = Set.of("slotId", "templateId", "installed", "components");
+    private static final Set<String> INVENTORY_KEYS = Set.of("Items", "Size");
+    private static final Set<String> ITEM_KEYS = Set.of("Slot", "id", "Count", "tag");
+
+    private ModificationCodec() {}
+
+    /**
+     * 编码 installed_slots 复合标签（键 -> 插槽标签）
+     */
+    public static byte[] encode(CompoundTag installedSlots) throws IOException {
+        Map<String, CompoundTag> slots = new LinkedHashMap<>();
+        for (String key : installedSlots.getAllKeys()) {
+            if (installedSlots.get(key) instanceof CompoundTag slotTag) {
+                slots.put(key, slotTag);
+            }
+        }
+        return encode(slots);
+    }
+
+    /**
+     * 编码插槽映射（键 -> 插槽标签）
+     */
+    public static byte[] encode(Map<String, CompoundTag> slots) throws IOException {
+        Palette palette = new Palette();
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        writeVarInt(body, slots.size());
+        for (Map.Entry<String, CompoundTag> entry : slots.entrySet()) {
+            writeSlot(body, palette, entry.getKey(), entry.getValue());
+        }
+        body.flush();
+
+        ByteArrayOutputStream outBytes = new ByteArrayOutputStream(bodyBytes.size() + 64);
+        DataOutputStream out = new DataOutputStream(outBytes);
+        out.writeByte(VERSION);
+        writeVarInt(out, palette.values.size());
+        for (String value : palette.values) {
+            out.writeUTF(value);
+        }
+        bodyBytes.writeTo(out);
+        out.flush();
+        return outBytes.toByteArray();
+    }
+
+    /**
+     * 解码为 installed_slots 复合标签
+     */
+    public static CompoundTag decodeCompound(byte[] data) throws IOException {
+        CompoundTag installedSlots = new CompoundTag();
+        for (Map.Entry<String, CompoundTag> entry : decode(data).entrySet()) {
+            installedSlots.put(entry.getKey(), entry.getValue());
+        }
+        return installedSlots;
+    }
+
+    /**
+     * 解码为插槽映射（保持编码时的顺序）
+     *
+     * @throws IOException 数据损坏或版本不受支持
+     */
+    public static Map<String, CompoundTag> decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("不支持的插槽编码版本: " + version);
+        }
+        int paletteSize = readVarInt(in);
+        String[] palette = new String[paletteSize];
+        for (int i = 0; i < paletteSize; i++) {
+            palette[i] = in.readUTF();
+        }
+
+        int count = readVarInt(in);
+        Map<String, CompoundTag> slots = new LinkedHashMap<>(Math.max(16, count * 2));
+        for (int i = 0; i < count; i++) {
+            readSlot(in, palette, slots);
+        }
+        return slots;
+    }
+
+    private static void writeSlot(DataOutput out, Palette palette, String key, CompoundTag slotTag) throws IOException {
+        UUID slotId = parseUuid(slotTag.getString("slotId"));
+        if (slotId == null || !key.equals(slotId.toString())
+                || !slotTag.contains("templateId", Tag.TAG_STRING)
+                || !slotTag.contains("components", Tag.TAG_COMPOUND)) {
+            out.writeByte(SLOT_RAW);
+            out.writeUTF(key);
+            NbtIo.write(slotTag, out);
+            return;
+        }
+
+        CompoundTag rest = restOf(slotTag, SLOT_KEYS);
+        int flags = (slotTag.getBoolean("installed") ? SLOT_INSTALLED : 0) | (rest != null ? SLOT_HAS_REST : 0);
+        out.writeByte(flags);
+        out.writeLong(slotId.getMostSignificantBits());
+        out.writeLong(slotId.getLeastSignificantBits());
+        writeVarInt(out, palette.indexOf(slotTag.getString("templateId")));
+
+        CompoundTag components = slotTag.getCompound("components");
+        List<String> componentKeys = new ArrayList<>();
+        for (String componentKey : components.getAllKeys()) {
+            if (components.get(componentKey) instanceof CompoundTag) {
+                componentKeys.add(componentKey);
+            }
+        }
+        writeVarInt(out, componentKeys.size());
+        for (String componentKey : componentKeys) {
+            writeVarInt(out, palette.indexOf(componentKey));
+            writeComponent(out, palette, components.getCompound(componentKey));
+        }
+        if (rest != null) {
+            NbtIo.write(rest, out);
+        }
+    }
+
+    private static void readSlot(DataInput in, String[] palette, Map<String, CompoundTag> slots) throws IOException {
+        int flags = in.readUnsignedByte();
+        if ((flags & SLOT_RAW) != 0) {
+            String key = in.readUTF();
+            slots.put(key, NbtIo.read(in));
+            return;
+        }
+
+        UUID slotId = new UUID(in.readLong(), in.readLong());
+        CompoundTag slotTag = new CompoundTag();
+        slotTag.putString("slotId", slotId.toString());
+        slotTag.putString("templateId", palette[readVarInt(in)]);
+        slotTag.putBoolean("installed", (flags & SLOT_INSTALLED) != 0);
+
+        CompoundTag components = new CompoundTag();
+        int componentCount = readVarInt(in);
+        for (int i = 0; i < componentCount; i++) {
+            String componentKey = palette[readVarInt(in)];
+            components.put(componentKey, readComponent(in, palette));
+        }
+        slotTag.put("components", components);
+        if ((flags & SLOT_HAS_REST) != 0) {
+            slotTag.merge(NbtIo.read(in));
+        }
+        slots.put(slotId.toString(), slotTag);
+    }
+
+    private static void writeComponent(DataOutput out, Palette palette, CompoundTag componentTag) throws IOException {
+        boolean hasType = componentTag.contains("componentType", Tag.TAG_STRING);
+        boolean hasActive = componentTag.contains("active", Tag.TAG_BYTE);
+        CompoundTag inventory = componentTag.contains("inventory", Tag.TAG_COMPOUND) ? componentTag.getCompound("inventory") : null;
+        boolean compactInventory = inventory != null && isCompactInventory(inventory);
+
+        Set<String> handled = new HashSet<>();
+        if (hasType) handled.add("componentType");
+        if (hasActive) handled.add("active");
+        if (compactInventory) handled.add("inventory");
+        CompoundTag rest = restOf(componentTag, handled);
+
+        int flags = (hasActive && componentTag.getBoolean("active") ? COMPONENT_ACTIVE : 0)
+                | (hasActive ? COMPONENT_HAS_ACTIVE : 0)
+                | (hasType ? COMPONENT_HAS_TYPE : 0)
+                | (compactInventory ? COMPONENT_HAS_INVENTORY : 0)
+                | (rest != null ? COMPONENT_HAS_REST : 0);
+        out.writeByte(flags);
+        if (hasType) {
+            writeVarInt(out, palette.indexOf(componentTag.getString("componentType")));
+        }
+        if (compactInventory) {
+            writeInventory(out, palette, inventory);
+        }
+        if (rest != null) {
+            NbtIo.write(rest, out);
+        }
+    }
+
+    private static CompoundTag readComponent(DataInput in, String[] palette) throws IOException {
+        int flags = in.readUnsignedByte();
+        CompoundTag componentTag = new CompoundTag();
+        if ((flags & COMPONENT_HAS_TYPE) != 0) {
+            componentTag.putString("componentType", palette[readVarInt(in)]);
+        }
+        if ((flags & COMPONENT_HAS_ACTIVE) != 0) {
+            componentTag.putBoolean("active", (flags & COMPONENT_ACTIVE) != 0);
+        }
+        if ((flags & COMPONENT_HAS_INVENTORY) != 0) {
+            componentTag.put("inventory", readInventory(in, palette));
+        }
+        if ((flags & COMPONENT_HAS_REST) != 0) {
+            componentTag.merge(NbtIo.read(in));
+        }
+        return componentTag;
+    }
+
+    /**
+     * 是否为 ItemStackHandler 的标准格式（只有 Items 和 Size，物品只有 Slot/id/Count/tag）
+     */
+    private static boolean isCompactInventory(CompoundTag inventory) {
+        if (!INVENTORY_KEYS.containsAll(inventory.getAllKeys())
+                || !inventory.contains("Items", Tag.TAG_LIST) || !inventory.contains("Size", Tag.TAG_INT)) {
+            return false;
+        }
+        ListTag items = inventory.getList("Items", Tag.TAG_COMPOUND);
+        if (items.size() != ((ListTag) inventory.get("Items")).size()) {
+            return false;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            CompoundTag item = items.getCompound(i);
+            if (!ITEM_KEYS.containsAll(item.getAllKeys())
+                    || !item.contains("Slot", Tag.TAG_INT) || !item.contains("id", Tag.TAG_STRING)
+                    || !item.contains("Count", Tag.TAG_BYTE)
+                    || (item.contains("tag") && !item.contains("tag", Tag.TAG_COMPOUND))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeInventory(DataOutput out, Palette palette, CompoundTag inventory) throws IOException {
+        writeVarInt(out, inventory.getInt("Size"));
+        ListTag items = inventory.getList("Items", Tag.TAG_COMPOUND);
+        writeVarInt(out, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            CompoundTag item = items.getCompound(i);
+            writeVarInt(out, item.getInt("Slot"));
+            writeVarInt(out, palette.indexOf(item.getString("id")));
+            out.writeByte(item.getByte("Count"));
+            boolean hasTag = item.contains("tag", Tag.TAG_COMPOUND);
+            out.writeBoolean(hasTag);
+            if (hasTag) {
+                NbtIo.write(item.getCompound("tag"), out);
+            }
+        }
+    }
+
+    private static CompoundTag readInventory(DataInput in, String[] palette) throws IOException {
+        CompoundTag inventory = new CompoundTag();
+        int size = readVarInt(in);
+        int count = readVarInt(in);
+        ListTag items = new ListTag();
+        for (int i = 0; i < count; i++) {
+            CompoundTag item = new CompoundTag();
+            item.putInt("Slot", readVarInt(in));
+            item.putString("id", palette[readVarInt(in)]);
+            item.putByte("Count", in.readByte());
+            if (in.readBoolean()) {
+                item.put("tag", NbtIo.read(in));
+            }
+            items.add(item);
+        }
+        inventory.put("Items", items);
+        inventory.putInt("Size", size);
+        return inventory;
+    }
+
+    /**
+     * 除已处理键以外的字段（共享子标签，不复制），没有剩余字段时返回null
+     */
+    private static CompoundTag restOf(CompoundTag tag, Set<String> handled) {
+        CompoundTag rest = null;
+        for (String key : tag.getAllKeys()) {
+            if (!handled.contains(key)) {
+                if (rest == null) rest = new CompoundTag();
+                rest.put(key, tag.get(key));
+            }
+        }
+        return rest;
+    }
+
+    private static UUID parseUuid(String value) {
+        try {
+            return value.isEmpty() ? null : UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 35) {
+                throw new IOException("变长整数过长");
+            }
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * 编码时的字符串常量池
+     */
+    private static final class Palette {
+        final List<String> values = new ArrayList<>();
+        final Map<String, Integer> indices = new HashMap<>();
+
+        int indexOf(String value) {
+            return indices.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+    }
+}
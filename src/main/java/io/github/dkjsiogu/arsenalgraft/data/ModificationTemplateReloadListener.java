@@ -14,6 +14,6 @@ public class ModificationTemplateReloadListener extends ModificationTemplateLoad
     @SubscribeEvent
     public static void onAddReloadListener(AddReloadListenerEvent event) {
         event.addListener(new ModificationTemplateReloadListener());
-        ArsenalGraft.LOGGER.info("注册 ModificationTemplateReloadListener (SimpleJsonResourceReloadListener)");
+        ArsenalGraft.LOGGER.info("注册 ModificationTemplateReloadListener (SimplePreparableReloadListener)");
     }
 }
@@ -0,0 +1,189 @@
+package io.github.dkjsiogu.arsenalgraft.data;
+
+import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 改造数据的异步持久化管线
+ *
+ * 主线程只负责取出脏状态并捕获插槽的序列化标签（共享的只读实例），
+ * 合并进玩家根标签、校验和写出都交给专用的 I/O 线程完成。
+ *
+ * I/O 线程按玩家 UUID 分成若干条单线程通道：同一玩家的写入总是落在同一条通道上，
+ * 因此严格按提交顺序执行；不同玩家的写入可以并行。
+ *
+ * 必须回到主线程执行的收尾工作（例如迁移成功后清理玩家实体上的旧数据）通过 {@link #publishOnMainThread}
+ * 排队，由服务器 tick 或屏障统一执行。
+ *
+ * 屏障：
+ * - {@link #awaitPendingWrites} 阻塞等待全部通道清空，只用于世界保存和服务器关闭
+ * - {@link #afterPlayerWrites} / {@link #afterPendingWrites} 不阻塞：写入落盘后把收尾任务排回主线程（登出、离线缓存淘汰）
+ */
+public final class PersistencePipeline {
+
+    // 通道数量：I/O 为主，不需要太多线程
+    private static final int LANE_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    // 屏障的最长等待时间，超时后记录警告并继续（避免关服卡死）
+    private static final long BARRIER_TIMEOUT_SECONDS = 30;
+
+    private static final ExecutorService[] lanes = new ExecutorService[LANE_COUNT];
+    private static final Queue<Runnable> mainThreadTasks = new ConcurrentLinkedQueue<>();
+
+    private static final AtomicInteger pending = new AtomicInteger();
+    private static final AtomicLong completed = new AtomicLong();
+    private static final AtomicLong failed = new AtomicLong();
+
+    static {
+        for (int i = 0; i < LANE_COUNT; i++) {
+            int index = i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ArsenalGraft-IO-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private PersistencePipeline() {}
+
+    /**
+     * 提交一个玩家的写入任务；同一玩家的任务按提交顺序执行
+     */
+    public static void submit(UUID playerId, Runnable task) {
+        pending.incrementAndGet();
+        laneOf(playerId).execute(() -> {
+            try {
+                task.run();
+                completed.incrementAndGet();
+            } catch (Throwable t) {
+                failed.incrementAndGet();
+                ArsenalGraft.LOGGER.error("改造数据异步写入失败: {}", playerId, t);
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 在玩家的通道上执行一个带返回值的任务，与该玩家的写入串行（例如离线迁移的"检查并写入"）
+     */
+    public static <T> CompletableFuture<T> supply(UUID playerId, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        submit(playerId, () -> {
+            try {
+                future.complete(task.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 排队一个需要在主线程执行的收尾任务（由 I/O 线程调用）
+     */
+    public static void publishOnMainThread(Runnable task) {
+        mainThreadTasks.add(task);
+    }
+
+    /**
+     * 在主线程执行已排队的收尾任务
+     *
+     * @return 执行的任务数
+     */
+    public static int runMainThreadTasks() {
+        int count = 0;
+        Runnable task;
+        while ((task = mainThreadTasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                ArsenalGraft.LOGGER.error("改造数据收尾任务执行失败", e);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 单个玩家此前提交的写入全部完成后，把收尾任务排回主线程（不阻塞调用方）
+     */
+    public static void afterPlayerWrites(UUID playerId, Runnable mainThreadTask) {
+        barrier(laneOf(playerId)).whenComplete((ignored, error) -> publishOnMainThread(mainThreadTask));
+    }
+
+    /**
+     * 所有通道中此前提交的写入全部完成后，把收尾任务排回主线程（不阻塞调用方）
+     */
+    public static void afterPendingWrites(Runnable mainThreadTask) {
+        allBarriers().whenComplete((ignored, error) -> publishOnMainThread(mainThreadTask));
+    }
+
+    /**
+     * 等待所有通道中此前提交的写入全部完成，然后执行主线程收尾任务
+     *
+     * 会阻塞调用线程（最长 {@link #BARRIER_TIMEOUT_SECONDS} 秒），只在世界保存和服务器关闭时使用。
+     */
+    public static void awaitPendingWrites() {
+        awaitLanes();
+        runMainThreadTasks();
+    }
+
+    /**
+     * 只等待所有通道中此前提交的写入完成，不执行主线程收尾任务（可在后台线程调用）
+     */
+    public static void awaitLanes() {
+        await(allBarriers());
+    }
+
+    /**
+     * 管线统计信息
+     */
+    public static String getStats() {
+        return String.format("I/O通道: %d, 排队写入: %d, 已完成: %d, 失败: %d, 待主线程收尾: %d",
+                LANE_COUNT, pending.get(), completed.get(), failed.get(), mainThreadTasks.size());
+    }
+
+    private static ExecutorService laneOf(UUID playerId) {
+        return lanes[Math.floorMod(playerId.hashCode(), LANE_COUNT)];
+    }
+
+    // 单线程通道按顺序执行，排在末尾的空任务完成即表示之前的任务都已完成
+    private static CompletableFuture<Void> barrier(ExecutorService lane) {
+        return CompletableFuture.runAsync(() -> {}, lane);
+    }
+
+    private static CompletableFuture<Void> allBarriers() {
+        List<CompletableFuture<Void>> barriers = new ArrayList<>(LANE_COUNT);
+        for (ExecutorService lane : lanes) {
+            barriers.add(barrier(lane));
+        }
+        return CompletableFuture.allOf(barriers.toArray(new CompletableFuture[0]));
+    }
+
+    private static void await(CompletableFuture<Void> barrier) {
+        try {
+            barrier.get(BARRIER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            ArsenalGraft.LOGGER.warn("等待改造数据写入超时（{}秒），剩余: {}", BARRIER_TIMEOUT_SECONDS, pending.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            ArsenalGraft.LOGGER.error("等待改造数据写入失败", e);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package io.github.dkjsiogu.arsenalgraft.data;
+
+import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.storage.LevelResource;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerStartedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 全部玩家数据的离线迁移与整理
+ *
+ * 平时旧数据只在玩家登录时才迁移（版本升级、挂在玩家实体上的 arsenalgraft_data、
+ * 更早的 arsenalgraft_v3_slots），玩家很多的存档升级后会把这些开销分摊到每次登录上。
+ * 这里在专用的 ForkJoinPool 上并行扫描 {@code playerdata/*.dat}，一次性完成：
+ * - 把玩家实体上的改造数据迁移到 {@link PlayerDataStore} 的独立文件并升级到当前版本
+ * - 把插槽统一为按 slotId 存储、以 {@link ModificationCodec} 编码的形式
+ * - 清除 player.dat 中不再使用的键（旧数据、网络延迟和频率限制的时间戳）
+ * 所有文件都先写临时文件再原子替换。
+ *
+ * 在线玩家的数据在内存中，且 PlayerList 只能在主线程访问，因此只在没有玩家在线时执行（在主线程检查）。
+ * 扫描期间仍可能有玩家登录：原版读取 player.dat 时触发的 {@link PlayerEvent.LoadFromFile} 在主线程记下该玩家，
+ * 迁移线程在同一把按 UUID 分段的锁内"确认未登录且文件未被改动，再替换文件"，两者不会交错；
+ * 改造数据文件的检查与写入还放在该玩家的 {@link PersistencePipeline} 通道上，与模组自身的异步写入串行。
+ *
+ * 触发方式：命令 {@code /arsena admin migrate}，或启动参数 {@code -Darsenalgraft.migrateOnStart=true}
+ * （服务器启动完成、玩家进入之前执行）。
+ */
+@Mod.EventBusSubscriber(modid = ArsenalGraft.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public final class PlayerDataMigrator {
+
+    public static final String MIGRATE_ON_START_PROPERTY = "arsenalgraft.migrateOnStart";
+
+    // 与 ModificationManagerImpl 中的旧版键一致
+    private static final String LEGACY_SLOTS_KEY = "arsenalgraft_v3_slots";
+    // 原版把 getPersistentData() 保存在实体标签的这个键下
+    private static final String FORGE_DATA_KEY = "ForgeData";
+    // 只在运行时有意义、不需要持久化的键
+    private static final String LATENCY_KEY = "arsenalgraft.latency";
+    private static final String RATE_LIMIT_PREFIX = "arsenalgraft.ratelimit.";
+
+    private static final ForkJoinPool MIGRATION_POOL = new ForkJoinPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            pool -> {
+                var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("ArsenalGraft-Migration-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            },
+            null, false);
+
+    // 与玩家登录互斥的分段锁：替换某个玩家的文件时持有，主线程记录该玩家登录时也要获取
+    private static final Object[] PLAYER_LOCKS = new Object[16];
+
+    static {
+        for (int i = 0; i < PLAYER_LOCKS.length; i++) {
+            PLAYER_LOCKS[i] = new Object();
+        }
+    }
+
+    private static final AtomicBoolean running = new AtomicBoolean();
+    // 迁移期间开始登录的玩家（主线程写入，迁移线程读取）
+    private static final Set<UUID> joined = ConcurrentHashMap.newKeySet();
+
+    private PlayerDataMigrator() {}
+
+    @SubscribeEvent
+    public static void onServerStarted(ServerStartedEvent event) {
+        if (Boolean.getBoolean(MIGRATE_ON_START_PROPERTY)) {
+            Result result = migrateAll(event.getServer());
+            if (result != null) {
+                ArsenalGraft.LOGGER.info("[PlayerDataMigrator] {}", result.summary());
+            }
+        }
+    }
+
+    /**
+     * 玩家登录时原版读取 player.dat 后触发（主线程），记下迁移期间登录的玩家
+     */
+    @SubscribeEvent
+    public static void onPlayerLoading(PlayerEvent.LoadFromFile event) {
+        if (!running.get()) {
+            return;
+        }
+        UUID playerId = event.getEntity().getUUID();
+        // 等待正在替换该玩家文件的迁移线程完成，之后的检查都会看到该玩家已登录
+        synchronized (lockOf(playerId)) {
+            joined.add(playerId);
+        }
+    }
+
+    /**
+     * 在迁移线程池上异步执行（供命令调用，必须在主线程调用）
+     *
+     * @return 迁移结果；有玩家在线时返回拒绝执行的结果，已有迁移在进行时结果为null
+     */
+    public static CompletableFuture<Result> migrateAllAsync(MinecraftServer server) {
+        int online = server.getPlayerList().getPlayerCount();
+        if (online > 0) {
+            return CompletableFuture.completedFuture(Result.refused(online));
+        }
+        if (!begin()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                // 先让已提交的异步写入落盘，避免与之后的文件替换交错（在迁移线程等待，不阻塞主线程）
+                PersistencePipeline.awaitLanes();
+                return scan(server);
+            } finally {
+                running.set(false);
+            }
+        }, MIGRATION_POOL);
+    }
+
+    /**
+     * 同步执行迁移（服务器启动时在主线程调用）
+     *
+     * @return 迁移结果；有玩家在线时返回拒绝执行的结果，已有迁移在进行时返回null
+     */
+    public static Result migrateAll(MinecraftServer server) {
+        int online = server.getPlayerList().getPlayerCount();
+        if (online > 0) {
+            return Result.refused(online);
+        }
+        if (!begin()) {
+            return null;
+        }
+        try {
+            PersistencePipeline.awaitPendingWrites();
+            return scan(server);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private static boolean begin() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        joined.clear();
+        return true;
+    }
+
+    private static Result scan(MinecraftServer server) {
+        try {
+            Path playerDir = server.getWorldPath(LevelResource.PLAYER_DATA_DIR);
+            List<Path> files = new ArrayList<>();
+            if (Files.isDirectory(playerDir)) {
+                try (Stream<Path> stream = Files.list(playerDir)) {
+                    stream.filter(path -> path.getFileName().toString().endsWith(".dat")).forEach(files::add);
+                }
+            }
+
+            Counters counters = new Counters();
+            long start = System.nanoTime();
+            MIGRATION_POOL.submit(() -> files.parallelStream().forEach(file -> migrateFile(file, counters))).join();
+            long millis = (System.nanoTime() - start) / 1_000_000L;
+            return counters.toResult(files.size(), millis);
+        } catch (IOException e) {
+            ArsenalGraft.LOGGER.error("[PlayerDataMigrator] 扫描玩家数据目录失败", e);
+            return new Result(0, 0, 0, 0, 0, 1, 0L, 0L, 0L, 0);
+        }
+    }
+
+    private static void migrateFile(Path file, Counters counters) {
+        String name = file.getFileName().toString();
+        UUID playerId;
+        try {
+            playerId = UUID.fromString(name.substring(0, name.length() - ".dat".length()));
+        } catch (IllegalArgumentException e) {
+            return; // 不是玩家数据文件
+        }
+        if (joined.contains(playerId)) {
+            counters.skipped.incrementAndGet();
+            return;
+        }
+
+        try {
+            long sizeBefore = Files.size(file);
+            FileTime modifiedBefore = Files.getLastModifiedTime(file);
+            counters.bytesBefore.addAndGet(sizeBefore);
+            CompoundTag playerTag = NbtIo.readCompressed(file.toFile());
+            CompoundTag forgeData = playerTag.getCompound(FORGE_DATA_KEY);
+
+            Boolean dataWritten = migrateGraftData(playerId, forgeData, counters);
+            if (dataWritten == null) {
+                counters.skipped.incrementAndGet();
+                counters.bytesAfter.addAndGet(sizeBefore);
+                return;
+            }
+
+            // 改造数据已在独立文件中（或本来就没有），清除玩家实体上的旧键和运行时键
+            boolean playerChanged = false;
+            if (dataWritten || Files.isRegularFile(PlayerDataStore.fileOf(playerId))) {
+                playerChanged |= removeKey(forgeData, DataPersistenceManager.DATA_KEY);
+                playerChanged |= removeKey(forgeData, LEGACY_SLOTS_KEY);
+            }
+            playerChanged |= removeKey(forgeData, LATENCY_KEY);
+            for (String key : new ArrayList<>(forgeData.getAllKeys())) {
+                if (key.startsWith(RATE_LIMIT_PREFIX)) {
+                    forgeData.remove(key);
+                    playerChanged = true;
+                }
+            }
+
+            if (playerChanged) {
+                if (forgeData.isEmpty()) {
+                    playerTag.remove(FORGE_DATA_KEY);
+                } else {
+                    playerTag.put(FORGE_DATA_KEY, forgeData);
+                }
+                synchronized (lockOf(playerId)) {
+                    if (!isUntouched(playerId, file, modifiedBefore)) {
+                        // 读取之后玩家登录或原版重新保存了 player.dat，读到的内容已过期
+                        counters.skipped.incrementAndGet();
+                        counters.bytesAfter.addAndGet(Files.size(file));
+                        return;
+                    }
+                    writeAtomically(file, playerTag);
+                }
+                counters.cleaned.incrementAndGet();
+                counters.bytesAfter.addAndGet(Files.size(file));
+            } else {
+                counters.bytesAfter.addAndGet(sizeBefore);
+            }
+        } catch (Exception e) {
+            counters.failed.incrementAndGet();
+            ArsenalGraft.LOGGER.error("[PlayerDataMigrator] 迁移玩家数据失败: {}", file.getFileName(), e);
+        }
+    }
+
+    /**
+     * 迁移并整理一个玩家的改造数据
+     *
+     * @return 是否写入了独立数据文件；玩家在扫描期间登录或数据文件被改动时返回null
+     */
+    @Nullable
+    private static Boolean migrateGraftData(UUID playerId, CompoundTag forgeData, Counters counters) throws IOException {
+        Path dataFile = PlayerDataStore.fileOf(playerId);
+        if (dataFile == null) {
+            throw new IOException("服务器未运行，无法定位改造数据目录");
+        }
+
+        CompoundTag data;
+        boolean changed;
+        FileTime modifiedBefore = Files.isRegularFile(dataFile) ? Files.getLastModifiedTime(dataFile) : null;
+        if (modifiedBefore != null) {
+            // 独立文件优先；玩家实体上残留的旧数据说明之前的迁移已完成但未及清理
+            CompoundTag raw = NbtIo.readCompressed(dataFile.toFile());
+            changed = !raw.contains(PlayerDataStore.ENCODED_SLOTS_KEY, Tag.TAG_BYTE_ARRAY);
+            data = PlayerDataStore.decodeSlots(raw);
+        } else if (forgeData.contains(DataPersistenceManager.DATA_KEY, Tag.TAG_COMPOUND)) {
+            data = forgeData.getCompound(DataPersistenceManager.DATA_KEY).copy();
+            changed = true;
+        } else if (forgeData.contains(LEGACY_SLOTS_KEY, Tag.TAG_LIST)) {
+            data = new CompoundTag();
+            data.putString("player_id", playerId.toString());
+            data.putLong("created", System.currentTimeMillis());
+            data.putInt("arsenalgraft_version", DataVersionManager.CURRENT_VERSION);
+            changed = true;
+        } else {
+            return false;
+        }
+
+        // 更早的 ListTag 格式
+        if (!data.contains("installed_slots", Tag.TAG_COMPOUND) && forgeData.contains(LEGACY_SLOTS_KEY, Tag.TAG_LIST)) {
+            ListTag legacyList = forgeData.getList(LEGACY_SLOTS_KEY, Tag.TAG_COMPOUND);
+            CompoundTag slots = new CompoundTag();
+            for (int i = 0; i < legacyList.size(); i++) {
+                slots.put("slot_" + i, legacyList.getCompound(i).copy());
+            }
+            data.put("installed_slots", slots);
+            changed = true;
+        }
+        if (!data.contains("player_id")) {
+            data.putString("player_id", playerId.toString());
+            changed = true;
+        }
+        if (!data.contains("installed_slots", Tag.TAG_COMPOUND)) {
+            data.put("installed_slots", new CompoundTag());
+            changed = true;
+        }
+
+        int versionBefore = data.getInt("arsenalgraft_version");
+        data = DataVersionManager.upgradeData(data);
+        changed |= data.getInt("arsenalgraft_version") != versionBefore;
+        changed |= normalizeSlotKeys(data.getCompound("installed_slots"));
+
+        if (!changed) {
+            counters.upToDate.incrementAndGet();
+            return false;
+        }
+        if (!DataVersionManager.validateData(data, playerId, playerId.toString())) {
+            throw new IOException("迁移后的数据校验失败");
+        }
+        // 在该玩家的 I/O 通道上检查并写入，与模组对该玩家的其他异步写入串行
+        CompoundTag migrated = data;
+        boolean written;
+        try {
+            written = PersistencePipeline.supply(playerId, () -> {
+                synchronized (lockOf(playerId)) {
+                    if (!isUntouched(playerId, dataFile, modifiedBefore)) {
+                        return false;
+                    }
+                    if (!PlayerDataStore.write(playerId, migrated)) {
+                        throw new IOException("写入独立数据文件失败");
+                    }
+                    return true;
+                }
+            }).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+        if (!written) {
+            return null;
+        }
+        counters.migrated.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 把按下标（slot_i）存储的插槽改为按 slotId 存储
+     *
+     * @return 是否有改动
+     */
+    private static boolean normalizeSlotKeys(CompoundTag slots) {
+        boolean changed = false;
+        for (String key : new ArrayList<>(slots.getAllKeys())) {
+            if (!(slots.get(key) instanceof CompoundTag slotTag)) {
+                continue;
+            }
+            String slotId = slotTag.getString("slotId");
+            if (slotId.isEmpty() || slotId.equals(key) || slots.contains(slotId)) {
+                continue;
+            }
+            try {
+                UUID.fromString(slotId);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            slots.remove(key);
+            slots.put(slotId, slotTag);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static boolean removeKey(CompoundTag tag, String key) {
+        if (tag.contains(key)) {
+            tag.remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 替换文件前重新确认（须持有该玩家的分段锁）：玩家未在迁移期间登录，
+     * 且文件的修改时间与读取时一致（读取时不存在的文件仍不存在）
+     */
+    private static boolean isUntouched(UUID playerId, Path file, @Nullable FileTime modifiedBefore) throws IOException {
+        if (joined.contains(playerId)) {
+            return false;
+        }
+        if (modifiedBefore == null) {
+            return !Files.exists(file);
+        }
+        return Files.isRegularFile(file) && Files.getLastModifiedTime(file).equals(modifiedBefore);
+    }
+
+    private static void writeAtomically(Path file, CompoundTag tag) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".arsenalgraft.tmp");
+        NbtIo.writeCompressed(tag, tmp.toFile());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Object lockOf(UUID playerId) {
+        return PLAYER_LOCKS[Math.floorMod(playerId.hashCode(), PLAYER_LOCKS.length)];
+    }
+
+    private static final class Counters {
+        final AtomicInteger migrated = new AtomicInteger();
+        final AtomicInteger upToDate = new AtomicInteger();
+        final AtomicInteger cleaned = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicLong bytesBefore = new AtomicLong();
+        final AtomicLong bytesAfter = new AtomicLong();
+
+        Result toResult(int scanned, long millis) {
+            return new Result(scanned, migrated.get(), upToDate.get(), cleaned.get(), skipped.get(), failed.get(),
+                    bytesBefore.get(), bytesAfter.get(), millis, 0);
+        }
+    }
+
+    /**
+     * 一次迁移的统计结果
+     *
+     * @param scanned 扫描的 player.dat 数量
+     * @param migrated 写入独立数据文件的玩家数
+     * @param upToDate 改造数据已是最新格式的玩家数
+     * @param cleaned 重写了 player.dat 的玩家数
+     * @param skipped 因扫描期间登录或数据文件被改动而跳过的玩家数
+     * @param failed 失败数
+     * @param onlinePlayers 开始时的在线玩家数；大于0表示拒绝执行，未扫描任何文件
+     */
+    public record Result(int scanned, int migrated, int upToDate, int cleaned, int skipped, int failed,
+                         long bytesBefore, long bytesAfter, long millis, int onlinePlayers) {
+
+        static Result refused(int onlinePlayers) {
+            return new Result(0, 0, 0, 0, 0, 0, 0L, 0L, 0L, onlinePlayers);
+        }
+
+        public boolean refused() {
+            return onlinePlayers > 0;
+        }
+
+        public String summary() {
+            if (refused()) {
+                return String.format("当前有 %d 名玩家在线，未执行玩家数据迁移；请在没有玩家在线时执行", onlinePlayers);
+            }
+            double perSecond = millis > 0 ? scanned * 1000.0 / millis : scanned;
+            return String.format("玩家数据迁移完成: 扫描 %d, 迁移 %d, 已是最新 %d, 清理 player.dat %d, 跳过 %d, 失败 %d; "
+                            + "player.dat %d -> %d 字节; 用时 %d ms (%.1f 个/秒)",
+                    scanned, migrated, upToDate, cleaned, skipped, failed, bytesBefore, bytesAfter, millis, perSecond);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.dkjsiogu.arsenalgraft.data;
+
+import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.level.storage.LevelResource;
+import net.minecraftforge.event.server.ServerAboutToStartEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Arsenal Graft 独立的玩家数据文件
+ *
+ * 每个玩家一个压缩NBT文件：{@code <存档>/data/arsenalgraft/players/<uuid>.dat}。
+ * 改造数据（包括物品栏组件中的全部物品）不再挂在 {@code player.getPersistentData()} 上，
+ * 原版保存玩家时不再重复编码未变化的改造数据，player.dat 也保持小巧。
+ *
+ * 写入由 {@link PersistencePipeline} 的 I/O 线程按自己的节奏执行：先写临时文件，再原子替换。
+ * 文件中的 installed_slots 以 {@link ModificationCodec} 的二进制形式保存，读取时还原为原来的插槽标签。
+ */
+@Mod.EventBusSubscriber(modid = ArsenalGraft.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public final class PlayerDataStore {
+
+    // 文件中二进制插槽数据的键（内存中仍使用 installed_slots 复合标签）
+    static final String SLOTS_KEY = "installed_slots";
+    static final String ENCODED_SLOTS_KEY = "installed_slots_bin";
+
+    // 当前存档的数据目录，服务器未运行时为null
+    private static volatile Path directory;
+
+    private PlayerDataStore() {}
+
+    @SubscribeEvent
+    public static void onServerAboutToStart(ServerAboutToStartEvent event) {
+        directory = event.getServer().getWorldPath(LevelResource.ROOT)
+                .resolve("data").resolve(ArsenalGraft.MODID).resolve("players");
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        directory = null;
+    }
+
+    /**
+     * 玩家数据文件路径，服务器未运行时返回null
+     */
+    @Nullable
+    public static Path fileOf(UUID playerId) {
+        Path dir = directory;
+        return dir == null ? null : dir.resolve(playerId + ".dat");
+    }
+
+    /**
+     * 读取玩家数据文件
+     *
+     * @return 文件内容，文件不存在时返回null
+     * @throws IOException 文件损坏或读取失败
+     */
+    @Nullable
+    public static CompoundTag read(UUID playerId) throws IOException {
+        Path file = fileOf(playerId);
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return decodeSlots(NbtIo.readCompressed(file.toFile()));
+    }
+
+    /**
+     * 把文件中的二进制插槽数据还原为 installed_slots（原地修改刚读出的标签）
+     */
+    static CompoundTag decodeSlots(CompoundTag data) throws IOException {
+        if (data.contains(ENCODED_SLOTS_KEY, Tag.TAG_BYTE_ARRAY)) {
+            data.put(SLOTS_KEY, ModificationCodec.decodeCompound(data.getByteArray(ENCODED_SLOTS_KEY)));
+            data.remove(ENCODED_SLOTS_KEY);
+        }
+        return data;
+    }
+
+    /**
+     * 写入玩家数据文件（先写临时文件再原子替换，写入中途崩溃不会损坏已有文件）
+     *
+     * @return 是否写入成功
+     */
+    public static boolean write(UUID playerId, CompoundTag data) {
+        Path file = fileOf(playerId);
+        if (file == null) {
+            ArsenalGraft.LOGGER.warn("服务器未运行，无法写入玩家 {} 的改造数据", playerId);
+            return false;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            NbtIo.writeCompressed(encodeSlots(data), tmp.toFile());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            ArsenalGraft.LOGGER.error("写入玩家 {} 的改造数据文件失败", playerId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 把 installed_slots 换成二进制形式（浅复制根标签，不修改传入的数据）
+     */
+    private static CompoundTag encodeSlots(CompoundTag data) throws IOException {
+        if (!data.contains(SLOTS_KEY, Tag.TAG_COMPOUND)) {
+            return data;
+        }
+        CompoundTag out = new CompoundTag();
+        for (String key : data.getAllKeys()) {
+            if (!key.equals(SLOTS_KEY)) {
+                out.put(key, data.get(key));
+            }
+        }
+        out.putByteArray(ENCODED_SLOTS_KEY, ModificationCodec.encode(data.getCompound(SLOTS_KEY)));
+        return out;
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.dkjsiogu.arsenalgraft.data;
+
+import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
+import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationManager;
+import io.github.dkjsiogu.arsenalgraft.core.service.ServiceRegistry;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 改造槽位写回调度器
+ *
+ * 安装/卸载/库存编辑只标记脏插槽，这里按固定间隔合并写回：
+ * - 每 {@link #FLUSH_INTERVAL_TICKS} tick 写回一次
+ * - 世界保存时写回（保证存档包含最新数据）
+ * - 服务器关闭时写回
+ * 写回本身在 {@link PersistencePipeline} 的 I/O 线程执行；只有世界保存和服务器关闭时阻塞等待其全部完成，
+ * 离线缓存清理在写入落盘后回到主线程执行。
+ * 登出时的写回由 {@link ExtraPlayerPersistenceHandler} 处理。
+ *
+ * 另外每 {@link #EVICT_INTERVAL_TICKS} tick 清理一次离线玩家的缓存，
+ * 使内存占用只与在线玩家数量相关。
+ */
+@Mod.EventBusSubscriber(modid = ArsenalGraft.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class SlotPersistenceScheduler {
+
+    // 写回间隔（5秒）
+    public static final int FLUSH_INTERVAL_TICKS = 100;
+
+    // 离线缓存清理间隔（1分钟）及离线玩家缓存的最长空闲时间（5分钟）
+    public static final int EVICT_INTERVAL_TICKS = 1200;
+    public static final long OFFLINE_IDLE_MILLIS = 5 * 60 * 1000L;
+
+    private static int tickCounter = 0;
+    private static int evictCounter = 0;
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            // 执行异步写入完成后的主线程收尾任务
+            PersistencePipeline.runMainThreadTasks();
+            return;
+        }
+        if (++evictCounter >= EVICT_INTERVAL_TICKS) {
+            evictCounter = 0;
+            evictOffline(event.getServer());
+        }
+        if (++tickCounter < FLUSH_INTERVAL_TICKS) return;
+        tickCounter = 0;
+        flushAll();
+    }
+
+    @SubscribeEvent
+    public static void onLevelSave(LevelEvent.Save event) {
+        // 每个维度都会触发一次，只在主世界保存时写回
+        if (event.getLevel() instanceof Level level && !level.isClientSide && level.dimension() == Level.OVERWORLD) {
+            flushAll();
+            PersistencePipeline.awaitPendingWrites();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event) {
+        flushAll();
+        PersistencePipeline.awaitPendingWrites();
+        tickCounter = 0;
+        evictCounter = 0;
+    }
+
+    private static void evictOffline(MinecraftServer server) {
+        if (server == null) return;
+        try {
+            Set<UUID> online = new HashSet<>();
+            for (ServerPlayer player : server.getPlayerList().getPlayers()) {
+                online.add(player.getUUID());
+            }
+            ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+            if (modManager != null) {
+                modManager.evictIdlePlayers(online, OFFLINE_IDLE_MILLIS);
+            }
+            // 等刚提交的写回落盘后再清理数据缓存，避免增量写入找不到基础数据
+            PersistencePipeline.afterPendingWrites(() -> DataPersistenceManager.cleanupCache(online));
+        } catch (Exception e) {
+            ArsenalGraft.LOGGER.error("清理离线玩家缓存失败", e);
+        }
+    }
+
+    private static void flushAll() {
+        try {
+            ModificationManager modManager = ServiceRegistry.getInstance().getService(ModificationManager.class);
+            if (modManager != null) {
+                modManager.flushAllDirty();
+            }
+        } catch (Exception e) {
+            ArsenalGraft.LOGGER.error("改造数据写回失败", e);
+        }
+    }
+}
@@ -25,9 +25,7 @@ public class ArsenalMenus {
                 UUID slotId = buf.readUUID();
                 Player player = inv.player;
                 // 客户端侧根据 slotId 查找对应插槽
-                InstalledSlot slot = ArsenalGraftAPI.getAllModifications(player).stream()
-                        .filter(s -> s.getSlotId().equals(slotId))
-                        .findFirst().orElse(null);
+                InstalledSlot slot = ArsenalGraftAPI.getModificationBySlotId(player, slotId);
                 return new HandInventoryMenu(windowId, inv, slot);
             }));
 }
@@ -58,9 +58,7 @@ public class HandInventoryMenu extends AbstractContainerMenu {
 
     private static InstalledSlot findSlot(Player player, UUID id) {
         if (player == null) return null;
-        return ArsenalGraftAPI.getAllModifications(player).stream()
-                .filter(s -> s.getSlotId().equals(id))
-                .findFirst().orElse(null);
+        return ArsenalGraftAPI.getModificationBySlotId(player, id);
     }
 
     private void layout(Inventory playerInv) {
@@ -101,8 +99,8 @@ public class HandInventoryMenu extends AbstractContainerMenu {
                     for (int i=0;i<size;i++) {
                         comp.setItem(i, handler.getStackInSlot(i).copy());
                     }
-                    // 立即持久化保存，避免登出或崩溃造成丢失
-                    io.github.dkjsiogu.arsenalgraft.api.v3.ArsenalGraftAPI.savePlayerModifications(p);
+                    // 标记该槽位已变化，由写回任务合并持久化（登出/存档时也会立即写回）
+                    io.github.dkjsiogu.arsenalgraft.api.v3.ArsenalGraftAPI.markModificationDirty(p, slotId);
                 }
             }
         } else {
@@ -77,10 +77,7 @@ public class ComponentUpdatePacket implements NetworkPacket {
         if (modManager == null) return;
         
         // 查找对应的插槽
-        Optional<InstalledSlot> slotOpt = modManager.getAllInstalledSlots(player)
-            .stream()
-            .filter(slot -> slot.getSlotId().equals(packet.slotId))
-            .findFirst();
+        Optional<InstalledSlot> slotOpt = modManager.getSlotById(player, packet.slotId);
             
         if (!slotOpt.isPresent()) {
             return; // 插槽不存在
@@ -100,6 +97,9 @@ public class ComponentUpdatePacket implements NetworkPacket {
             // 触发组件更新（通过tick方法）
             component.tick(player);
             
+            // 标记插槽已变化，由写回任务持久化
+            modManager.markSlotDirty(player, packet.slotId);
+            
             // 同步到其他客户端（简化版本，总是同步）
             ModificationSyncPacket syncPacket = new ModificationSyncPacket(
                 player.getUUID(),
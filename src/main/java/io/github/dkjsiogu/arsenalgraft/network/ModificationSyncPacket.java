@@ -1,8 +1,11 @@
 package io.github.dkjsiogu.arsenalgraft.network;
 
+import io.github.dkjsiogu.arsenalgraft.ArsenalGraft;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.ModificationManager;
 import io.github.dkjsiogu.arsenalgraft.api.v3.modification.InstalledSlot;
 import io.github.dkjsiogu.arsenalgraft.core.service.ServiceRegistry;
+import io.github.dkjsiogu.arsenalgraft.data.ModificationCodec;
+import io.netty.handler.codec.DecoderException;
 import net.minecraft.client.Minecraft;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.FriendlyByteBuf;
@@ -12,6 +15,7 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.fml.DistExecutor;
 import net.minecraftforge.network.NetworkEvent;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.function.Supplier;
 
@@ -32,10 +36,21 @@ public class ModificationSyncPacket implements NetworkPacket {
      * 完整同步构造函数
      */
     public ModificationSyncPacket(UUID playerId, Map<String, CompoundTag> modificationData) {
+        this(playerId, modificationData, true);
+    }
+    
+    /**
+     * 多插槽构造函数，fullSync 为 false 时作为批量增量更新
+     */
+    public ModificationSyncPacket(UUID playerId, Map<String, CompoundTag> modificationData, boolean fullSync) {
+        this(playerId, new HashMap<>(modificationData), fullSync, System.currentTimeMillis());
+    }
+    
+    private ModificationSyncPacket(UUID playerId, Map<String, CompoundTag> modificationData, boolean fullSync, long timestamp) {
         this.playerId = playerId;
-        this.modificationData = new HashMap<>(modificationData);
-        this.fullSync = true;
-        this.timestamp = System.currentTimeMillis();
+        this.modificationData = modificationData;
+        this.fullSync = fullSync;
+        this.timestamp = timestamp;
     }
     
     /**
@@ -57,18 +72,27 @@ public class ModificationSyncPacket implements NetworkPacket {
         boolean fullSync = buffer.readBoolean();
         long timestamp = buffer.readLong();
         
-        int count = buffer.readVarInt();
-        Map<String, CompoundTag> modificationData = new HashMap<>();
-        
-        for (int i = 0; i < count; i++) {
-            String modId = buffer.readUtf();
-            CompoundTag data = buffer.readNbt();
-            modificationData.put(modId, data);
+        Map<String, CompoundTag> modificationData;
+        if (buffer.readBoolean()) {
+            // 紧凑二进制编码
+            try {
+                modificationData = new HashMap<>(ModificationCodec.decode(buffer.readByteArray()));
+            } catch (IOException e) {
+                throw new DecoderException("插槽同步数据解码失败", e);
+            }
+        } else {
+            int count = buffer.readVarInt();
+            modificationData = new HashMap<>();
+            
+            for (int i = 0; i < count; i++) {
+                String modId = buffer.readUtf();
+                CompoundTag data = buffer.readNbt();
+                modificationData.put(modId, data);
+            }
         }
         
-        ModificationSyncPacket packet = new ModificationSyncPacket(playerId, modificationData);
         // 保持原有的fullSync和timestamp状态
-        return packet;
+        return new ModificationSyncPacket(playerId, modificationData, fullSync, timestamp);
     }
     
     /**
@@ -79,6 +103,18 @@ public class ModificationSyncPacket implements NetworkPacket {
         buffer.writeBoolean(packet.fullSync);
         buffer.writeLong(packet.timestamp);
         
+        // 完整同步的插槽较多，使用紧凑二进制编码；单个插槽的增量更新仍按 NBT 发送
+        if (packet.fullSync) {
+            try {
+                byte[] encoded = ModificationCodec.encode(packet.modificationData);
+                buffer.writeBoolean(true);
+                buffer.writeByteArray(encoded);
+                return;
+            } catch (IOException e) {
+                ArsenalGraft.LOGGER.warn("插槽同步数据紧凑编码失败，改用NBT: {}", e.getMessage());
+            }
+        }
+        buffer.writeBoolean(false);
         buffer.writeVarInt(packet.modificationData.size());
         for (Map.Entry<String, CompoundTag> entry : packet.modificationData.entrySet()) {
             buffer.writeUtf(entry.getKey());
@@ -123,10 +159,7 @@ public class ModificationSyncPacket implements NetworkPacket {
                 UUID slotId = UUID.fromString(slotIdStr);
                 
                 // 查找对应的插槽
-                Optional<InstalledSlot> slotOpt = modManager.getAllInstalledSlots(player)
-                    .stream()
-                    .filter(slot -> slot.getSlotId().equals(slotId))
-                    .findFirst();
+                Optional<InstalledSlot> slotOpt = modManager.getSlotById(player, slotId);
                     
                 if (slotOpt.isPresent()) {
                     // 更新插槽数据
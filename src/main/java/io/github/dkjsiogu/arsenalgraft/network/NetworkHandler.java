@@ -19,7 +19,7 @@ import net.minecraftforge.network.simple.SimpleChannel;
  */
 public class NetworkHandler {
     
-    private static final String PROTOCOL_VERSION = "3.0";
+    private static final String PROTOCOL_VERSION = "3.1"; // 3.1: 完整同步改用紧凑二进制插槽编码
     public static final SimpleChannel INSTANCE = NetworkRegistry.newSimpleChannel(
         ResourceLocation.fromNamespaceAndPath(ArsenalGraft.MODID, "main"),
         () -> PROTOCOL_VERSION,
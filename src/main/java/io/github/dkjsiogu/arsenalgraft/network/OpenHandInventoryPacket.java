@@ -38,8 +38,7 @@ public class OpenHandInventoryPacket implements NetworkPacket {
         ctx.enqueueWork(() -> {
             ModificationManager manager = ServiceRegistry.getInstance().getService(ModificationManager.class);
             if (manager == null) return;
-            Optional<InstalledSlot> opt = manager.getAllInstalledSlots(sender).stream()
-                    .filter(s -> s.getSlotId().equals(pkt.slotId)).findFirst();
+            Optional<InstalledSlot> opt = manager.getSlotById(sender, pkt.slotId);
             if (opt.isEmpty()) return;
             InstalledSlot slot = opt.get();
             MenuProvider provider = new MenuProvider() {
@@ -57,10 +57,7 @@ public class SkillActivationPacket implements NetworkPacket {
         if (modManager == null) return;
         
         // 查找对应的插槽
-        Optional<InstalledSlot> slotOpt = modManager.getAllInstalledSlots(player)
-            .stream()
-            .filter(slot -> slot.getSlotId().equals(packet.slotId))
-            .findFirst();
+        Optional<InstalledSlot> slotOpt = modManager.getSlotById(player, packet.slotId);
             
         if (!slotOpt.isPresent()) {
             return; // 插槽不存在
@@ -75,6 +72,8 @@ public class SkillActivationPacket implements NetworkPacket {
         // 激活技能
         try {
             skillComponent.activateSkill(player, packet.skillName);
+            // 冷却等技能状态已变化，由写回任务持久化
+            modManager.markSlotDirty(player, packet.slotId);
         } catch (Exception e) {
             e.printStackTrace();
         }
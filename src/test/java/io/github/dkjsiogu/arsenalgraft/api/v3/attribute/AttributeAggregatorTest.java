@@ -0,0 +1,92 @@
+package io.github.dkjsiogu.arsenalgraft.api.v3.attribute;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 验证属性加成汇总的计算规则和汇总修改器的确定性 UUID
+ */
+public class AttributeAggregatorTest {
+
+    private static final double EPSILON = 1e-9;
+
+    public static void main(String[] args) {
+        System.out.println("开始验证属性加成汇总...");
+
+        try {
+            // 测试1: ADDITION 和 MULTIPLY_BASE 逐个相加
+            testAdditionSums();
+            System.out.println("✓ 加法汇总测试通过");
+
+            // 测试2: MULTIPLY_TOTAL 逐个相乘
+            testMultiplyTotalIsProduct();
+            System.out.println("✓ 乘法汇总测试通过");
+
+            // 测试3: 汇总修改器 UUID 由属性和运算确定
+            testDeterministicModifierIds();
+            System.out.println("✓ 确定性UUID测试通过");
+
+            System.out.println("\n🎉 属性加成汇总验证全部通过！");
+
+        } catch (Exception e) {
+            System.err.println("❌ 属性加成汇总验证失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void testAdditionSums() {
+        assertClose(6.5, AttributeAggregator.aggregate(AttributeModifier.Operation.ADDITION, List.of(1.0, 2.5, 3.0)), "ADDITION");
+        assertClose(-1.0, AttributeAggregator.aggregate(AttributeModifier.Operation.ADDITION, List.of(2.0, -3.0)), "ADDITION 负数");
+        assertClose(0.3, AttributeAggregator.aggregate(AttributeModifier.Operation.MULTIPLY_BASE, List.of(0.1, 0.2)), "MULTIPLY_BASE");
+        assertClose(0.0, AttributeAggregator.aggregate(AttributeModifier.Operation.ADDITION, List.of()), "ADDITION 空");
+        System.out.println("  - 加法与基础乘法按和汇总");
+    }
+
+    private static void testMultiplyTotalIsProduct() {
+        // 原版对每个 MULTIPLY_TOTAL 修改器执行 value *= 1 + amount，汇总值应为 (1.1 * 1.2) - 1
+        assertClose(1.1 * 1.2 - 1.0,
+                AttributeAggregator.aggregate(AttributeModifier.Operation.MULTIPLY_TOTAL, List.of(0.1, 0.2)), "MULTIPLY_TOTAL");
+        assertClose(0.5 * 2.0 - 1.0,
+                AttributeAggregator.aggregate(AttributeModifier.Operation.MULTIPLY_TOTAL, List.of(-0.5, 1.0)), "MULTIPLY_TOTAL 抵消");
+        assertClose(0.0, AttributeAggregator.aggregate(AttributeModifier.Operation.MULTIPLY_TOTAL, List.of()), "MULTIPLY_TOTAL 空");
+        System.out.println("  - 总乘法按积汇总，而不是按和");
+    }
+
+    private static void testDeterministicModifierIds() {
+        ResourceLocation maxHealth = ResourceLocation.fromNamespaceAndPath("minecraft", "generic.max_health");
+        ResourceLocation armor = ResourceLocation.fromNamespaceAndPath("minecraft", "generic.armor");
+
+        UUID first = AttributeAggregator.modifierId(maxHealth, AttributeModifier.Operation.ADDITION);
+        UUID second = AttributeAggregator.modifierId(ResourceLocation.fromNamespaceAndPath("minecraft", "generic.max_health"),
+                AttributeModifier.Operation.ADDITION);
+        if (!first.equals(second)) {
+            throw new RuntimeException("同一属性和运算的 UUID 应保持一致");
+        }
+        if (first.version() != 3) {
+            throw new RuntimeException("汇总修改器 UUID 应由 nameUUIDFromBytes 生成（版本3），实际: " + first.version());
+        }
+
+        Set<UUID> ids = new HashSet<>();
+        for (ResourceLocation attribute : List.of(maxHealth, armor)) {
+            for (AttributeModifier.Operation operation : AttributeModifier.Operation.values()) {
+                ids.add(AttributeAggregator.modifierId(attribute, operation));
+            }
+        }
+        int expected = 2 * AttributeModifier.Operation.values().length;
+        if (ids.size() != expected) {
+            throw new RuntimeException("不同属性或运算的 UUID 不应重复: " + ids.size() + " / " + expected);
+        }
+        System.out.println("  - " + ids.size() + " 个（属性，运算）组合的 UUID 稳定且互不相同");
+    }
+
+    private static void assertClose(double expected, double actual, String what) {
+        if (Math.abs(expected - actual) > EPSILON) {
+            throw new RuntimeException(what + " 汇总错误: 期望 " + expected + "，实际 " + actual);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.dkjsiogu.arsenalgraft.api.v3.modification;
+
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 验证插槽快照在增删插槽后模板位集、实例计数和类型索引保持正确
+ */
+public class SlotSnapshotTest {
+
+    private static final ModificationTemplate ARM = template("snapshot_test_arm", "arm", 3);
+    private static final ModificationTemplate EYE = template("snapshot_test_eye", "head", 1);
+    private static final ModificationTemplate LEG = template("snapshot_test_leg", "arm", 2);
+
+    public static void main(String[] args) {
+        System.out.println("开始验证插槽快照索引...");
+
+        try {
+            // 测试1: with 之后位集、计数和类型索引
+            testIndexesAfterWith();
+            System.out.println("✓ 追加插槽索引测试通过");
+
+            // 测试2: without 之后同一模板的其余实例保持已安装
+            testIndexesAfterWithout();
+            System.out.println("✓ 移除插槽索引测试通过");
+
+            // 测试3: 批量增删与单个增删结果一致，且只分配一个版本号
+            testBatchMatchesSingle();
+            System.out.println("✓ 批量增删索引测试通过");
+
+            System.out.println("\n🎉 插槽快照索引验证全部通过！");
+
+        } catch (Exception e) {
+            System.err.println("❌ 插槽快照索引验证失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void testIndexesAfterWith() {
+        InstalledSlot arm1 = new InstalledSlot(ARM);
+        InstalledSlot arm2 = new InstalledSlot(ARM);
+        InstalledSlot eye = new InstalledSlot(EYE);
+
+        SlotSnapshot snapshot = SlotSnapshot.EMPTY.with(arm1).with(arm2).with(eye);
+        check(snapshot.size() == 3, "插槽数量应为3");
+        check(snapshot.has(ARM.getId()) && snapshot.has(ARM.getNumericId()), "应已安装 ARM");
+        check(snapshot.has(EYE.getId()), "应已安装 EYE");
+        check(!snapshot.has(LEG.getId()) && !snapshot.has(LEG.getNumericId()), "不应安装 LEG");
+        check(snapshot.countOf(ARM.getId()) == 2, "ARM 数量应为2");
+        check(snapshot.countOf(EYE.getNumericId()) == 1, "EYE 数量应为1");
+        check(snapshot.countOf(LEG.getNumericId()) == 0, "LEG 数量应为0");
+        check(snapshot.ofTemplate(ARM.getId()).equals(List.of(arm1, arm2)), "ARM 实例应按安装顺序排列");
+        check(snapshot.firstOf(ARM.getId()) == arm1, "firstOf 应返回第一个实例");
+        check(snapshot.ofType("arm").equals(List.of(arm1, arm2)), "arm 类型应包含两个 ARM");
+        check(snapshot.ofType("head").equals(List.of(eye)), "head 类型应只包含 EYE");
+        check(snapshot.getById(eye.getSlotId()) == eye, "按ID查询应返回 EYE");
+
+        // 重复的 slotId 不改变快照
+        check(snapshot.with(arm1) == snapshot, "重复追加应返回自身");
+        System.out.println("  - 位集、计数、按模板和按类型索引一致");
+    }
+
+    private static void testIndexesAfterWithout() {
+        InstalledSlot arm1 = new InstalledSlot(ARM);
+        InstalledSlot arm2 = new InstalledSlot(ARM);
+        InstalledSlot leg = new InstalledSlot(LEG);
+        SlotSnapshot full = SlotSnapshot.of(List.of(arm1, arm2, leg));
+
+        SlotSnapshot oneArm = full.without(arm1.getSlotId());
+        check(oneArm.getVersion() > full.getVersion(), "移除后版本号应增大");
+        check(oneArm.has(ARM.getNumericId()), "还剩一个 ARM 时仍应已安装");
+        check(oneArm.countOf(ARM.getNumericId()) == 1, "ARM 数量应为1");
+        check(oneArm.ofTemplate(ARM.getNumericId()).equals(List.of(arm2)), "剩余实例应为 arm2");
+        check(oneArm.ofType("arm").equals(List.of(arm2, leg)), "arm 类型应为 arm2 和 LEG");
+        check(oneArm.getById(arm1.getSlotId()) == null, "已移除的插槽不应能按ID查到");
+
+        SlotSnapshot noArm = oneArm.without(arm2.getSlotId());
+        check(!noArm.has(ARM.getId()), "最后一个 ARM 移除后不应再已安装");
+        check(noArm.countOf(ARM.getId()) == 0, "ARM 数量应为0");
+        check(noArm.ofTemplate(ARM.getId()).isEmpty(), "ARM 实例列表应为空");
+        check(noArm.has(LEG.getId()) && noArm.countOf(LEG.getId()) == 1, "LEG 不受影响");
+
+        // 不存在的 slotId 不改变快照
+        check(noArm.without(arm1.getSlotId()) == noArm, "移除不存在的插槽应返回自身");
+        System.out.println("  - 移除实例后计数递减，最后一个实例移除时清除位集");
+    }
+
+    private static void testBatchMatchesSingle() {
+        InstalledSlot arm1 = new InstalledSlot(ARM);
+        InstalledSlot arm2 = new InstalledSlot(ARM);
+        InstalledSlot eye = new InstalledSlot(EYE);
+
+        SlotSnapshot single = SlotSnapshot.EMPTY.with(arm1).with(arm2).with(eye).without(arm1.getSlotId());
+        SlotSnapshot base = SlotSnapshot.EMPTY.withAll(List.of(arm1, arm2, eye));
+        SlotSnapshot batch = base.withoutAll(List.of(arm1.getSlotId()));
+
+        check(batch.getVersion() > base.getVersion(), "批量移除应分配新版本号");
+        check(batch.getSlots().equals(single.getSlots()), "批量与单个增删后的插槽应一致");
+        for (ModificationTemplate template : List.of(ARM, EYE, LEG)) {
+            int id = template.getNumericId();
+            check(batch.has(id) == single.has(id), "位集不一致: " + template.getId());
+            check(batch.countOf(id) == single.countOf(id), "计数不一致: " + template.getId());
+        }
+        check(base.withAll(List.of(arm1)) == base, "批量追加已存在的插槽应返回自身");
+        check(batch.withoutAll(List.of(arm1.getSlotId())) == batch, "批量移除不存在的插槽应返回自身");
+        System.out.println("  - withAll/withoutAll 与逐个增删结果一致");
+    }
+
+    private static ModificationTemplate template(String path, String slotType, int maxInstallCount) {
+        return new ModificationTemplate(ResourceLocation.fromNamespaceAndPath("arsenalgraft", path), Component.literal(path),
+                List.of(), slotType, Map.of(), maxInstallCount, false);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new RuntimeException(message);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.dkjsiogu.arsenalgraft.core.tick;
+
+import java.util.List;
+
+/**
+ * 验证插槽 tick 时间轮的分桶、多圈任务和按代数取消
+ */
+public class SlotTickWheelTest {
+
+    public static void main(String[] args) {
+        System.out.println("开始验证插槽tick时间轮...");
+
+        try {
+            // 测试1: 任务按到期tick落入对应的桶
+            testBucketPlacement();
+            System.out.println("✓ 分桶测试通过");
+
+            // 测试2: 间隔大于时间轮长度的任务多转几圈才到期
+            testMultiRoundTask();
+            System.out.println("✓ 多圈任务测试通过");
+
+            // 测试3: 代数变化后旧任务视为已取消
+            testGenerationCancellation();
+            System.out.println("✓ 代数取消测试通过");
+
+            System.out.println("\n🎉 插槽tick时间轮验证全部通过！");
+
+        } catch (Exception e) {
+            System.err.println("❌ 插槽tick时间轮验证失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void testBucketPlacement() {
+        SlotTickEngine.LevelWheel wheel = new SlotTickEngine.LevelWheel();
+        SlotTickEngine.ActiveEntry entry = new SlotTickEngine.ActiveEntry(null);
+        SlotTickEngine.TickTask soon = task(entry, 5);
+        SlotTickEngine.TickTask wrapped = task(entry, SlotTickEngine.WHEEL_SIZE + 5);
+        SlotTickEngine.TickTask other = task(entry, 7);
+        wheel.schedule(soon);
+        wheel.schedule(wrapped);
+        wheel.schedule(other);
+
+        check(SlotTickEngine.LevelWheel.bucketOf(5) == SlotTickEngine.LevelWheel.bucketOf(SlotTickEngine.WHEEL_SIZE + 5),
+                "相差一圈的tick应落入同一个桶");
+        check(wheel.buckets[SlotTickEngine.LevelWheel.bucketOf(5)].equals(List.of(soon, wrapped)), "桶5应包含两个任务");
+        check(wheel.buckets[SlotTickEngine.LevelWheel.bucketOf(7)].equals(List.of(other)), "桶7应只包含一个任务");
+        check(wheel.scheduled == 3, "调度数量应为3");
+
+        for (int tick = 1; tick < 5; tick++) {
+            check(wheel.advance().isEmpty(), "tick " + tick + " 不应有到期任务");
+        }
+        check(wheel.advance().equals(List.of(soon)), "tick 5 应只取出当圈到期的任务");
+        check(wheel.scheduled == 2, "取出后调度数量应为2");
+        check(wheel.advance().isEmpty(), "tick 6 不应有到期任务");
+        check(wheel.advance().equals(List.of(other)), "tick 7 应取出桶7的任务");
+        System.out.println("  - 任务按 dueTick & (WHEEL_SIZE-1) 分桶，每tick只取当前桶");
+    }
+
+    private static void testMultiRoundTask() {
+        SlotTickEngine.LevelWheel wheel = new SlotTickEngine.LevelWheel();
+        SlotTickEngine.ActiveEntry entry = new SlotTickEngine.ActiveEntry(null);
+        long dueTick = SlotTickEngine.WHEEL_SIZE * 2L + 3;
+        SlotTickEngine.TickTask slow = task(entry, dueTick);
+        wheel.schedule(slow);
+
+        int fired = 0;
+        long firedAt = -1;
+        for (long tick = 1; tick <= dueTick + SlotTickEngine.WHEEL_SIZE; tick++) {
+            for (SlotTickEngine.TickTask task : wheel.advance()) {
+                check(task == slow, "只应取出调度的任务");
+                fired++;
+                firedAt = wheel.currentTick;
+            }
+        }
+        check(fired == 1, "任务应恰好到期一次，实际: " + fired);
+        check(firedAt == dueTick, "任务应在 tick " + dueTick + " 到期，实际: " + firedAt);
+        check(wheel.scheduled == 0, "到期后不应再留在时间轮上");
+        System.out.println("  - 间隔 " + dueTick + " 的任务经过两圈后在正确的tick到期");
+    }
+
+    private static void testGenerationCancellation() {
+        SlotTickEngine.LevelWheel wheel = new SlotTickEngine.LevelWheel();
+        SlotTickEngine.ActiveEntry entry = new SlotTickEngine.ActiveEntry(null);
+        SlotTickEngine.TickTask stale = task(entry, 2);
+        wheel.schedule(stale);
+        check(!stale.isCancelled(), "新任务不应被取消");
+
+        // 移出或重新调度时代数递增，旧任务不从桶中删除
+        entry.generation++;
+        SlotTickEngine.TickTask fresh = task(entry, 2);
+        wheel.schedule(fresh);
+        check(stale.isCancelled(), "代数变化后旧任务应视为已取消");
+        check(!fresh.isCancelled(), "新代数的任务不应被取消");
+
+        wheel.advance();
+        List<SlotTickEngine.TickTask> due = wheel.advance();
+        check(due.equals(List.of(stale, fresh)), "旧任务仍在桶中，到期时惰性丢弃");
+        check(due.stream().filter(task -> !task.isCancelled()).count() == 1, "只应执行一个有效任务");
+        System.out.println("  - 旧代数任务到期时被识别为已取消");
+    }
+
+    private static SlotTickEngine.TickTask task(SlotTickEngine.ActiveEntry entry, long dueTick) {
+        return new SlotTickEngine.TickTask(entry, null, null, 1, dueTick);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new RuntimeException(message);
+        }
+    }
+}
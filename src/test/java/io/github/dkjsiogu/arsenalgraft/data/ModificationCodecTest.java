@@ -0,0 +1,176 @@
+package io.github.dkjsiogu.arsenalgraft.data;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 验证插槽二进制编码的往返一致性
+ *
+ * 覆盖标准插槽、空映射、结构不符合预期时的原样写入（RAW）以及未知版本号的拒绝
+ */
+public class ModificationCodecTest {
+
+    public static void main(String[] args) {
+        System.out.println("开始验证插槽二进制编码...");
+
+        try {
+            // 测试1: 标准插槽编码再解码后完全一致，且保持顺序
+            testRoundTrip();
+            System.out.println("✓ 往返一致性测试通过");
+
+            // 测试2: 空映射
+            testEmptyMap();
+            System.out.println("✓ 空映射测试通过");
+
+            // 测试3: 结构不符合预期的插槽按原样写入
+            testRawFallback();
+            System.out.println("✓ 原样写入回退测试通过");
+
+            // 测试4: 未知版本号
+            testUnknownVersionRejected();
+            System.out.println("✓ 未知版本号拒绝测试通过");
+
+            System.out.println("\n🎉 插槽二进制编码验证全部通过！");
+
+        } catch (Exception e) {
+            System.err.println("❌ 插槽二进制编码验证失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void testRoundTrip() throws IOException {
+        Map<String, CompoundTag> slots = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            UUID slotId = UUID.randomUUID();
+            slots.put(slotId.toString(), standardSlot(slotId, i % 2 == 0));
+        }
+
+        Map<String, CompoundTag> decoded = ModificationCodec.decode(ModificationCodec.encode(slots));
+        if (!decoded.equals(slots)) {
+            throw new RuntimeException("解码结果与原插槽不一致: " + decoded);
+        }
+        if (!new ArrayList<>(decoded.keySet()).equals(new ArrayList<>(slots.keySet()))) {
+            throw new RuntimeException("解码后插槽顺序发生变化");
+        }
+
+        // 复合标签形式的入口应得到同样的结果
+        CompoundTag installedSlots = new CompoundTag();
+        slots.forEach(installedSlots::put);
+        CompoundTag decodedCompound = ModificationCodec.decodeCompound(ModificationCodec.encode(installedSlots));
+        if (!decodedCompound.equals(installedSlots)) {
+            throw new RuntimeException("复合标签往返结果不一致");
+        }
+        System.out.println("  - " + slots.size() + " 个插槽往返一致");
+    }
+
+    private static void testEmptyMap() throws IOException {
+        byte[] data = ModificationCodec.encode(new LinkedHashMap<>());
+        if (!ModificationCodec.decode(data).isEmpty()) {
+            throw new RuntimeException("空映射解码后应为空");
+        }
+        if (!ModificationCodec.decodeCompound(data).isEmpty()) {
+            throw new RuntimeException("空映射解码为复合标签后应为空");
+        }
+    }
+
+    private static void testRawFallback() throws IOException {
+        Map<String, CompoundTag> slots = new LinkedHashMap<>();
+
+        // slotId 无法解析
+        CompoundTag badId = standardSlot(UUID.randomUUID(), true);
+        badId.putString("slotId", "not-a-uuid");
+        slots.put("slot_0", badId);
+
+        // 键与 slotId 不一致（旧的按下标存储）
+        UUID legacyId = UUID.randomUUID();
+        slots.put("slot_1", standardSlot(legacyId, false));
+
+        // 缺少 components
+        UUID noComponentsId = UUID.randomUUID();
+        CompoundTag noComponents = standardSlot(noComponentsId, true);
+        noComponents.remove("components");
+        slots.put(noComponentsId.toString(), noComponents);
+
+        // 物品栏带有非标准字段，组件整体走其余字段
+        UUID oddInventoryId = UUID.randomUUID();
+        CompoundTag oddInventory = standardSlot(oddInventoryId, true);
+        oddInventory.getCompound("components").getCompound("inventory").getCompound("inventory").putString("extra", "x");
+        slots.put(oddInventoryId.toString(), oddInventory);
+
+        Map<String, CompoundTag> decoded = ModificationCodec.decode(ModificationCodec.encode(slots));
+        if (!decoded.equals(slots)) {
+            throw new RuntimeException("原样写入的插槽未能无损还原: " + decoded);
+        }
+        System.out.println("  - " + slots.size() + " 个非标准插槽无损还原");
+    }
+
+    private static void testUnknownVersionRejected() throws IOException {
+        byte[] data = ModificationCodec.encode(new LinkedHashMap<>());
+        data[0] = (byte) (ModificationCodec.VERSION + 1);
+        try {
+            ModificationCodec.decode(data);
+        } catch (IOException expected) {
+            return;
+        }
+        throw new RuntimeException("未知版本号应被拒绝");
+    }
+
+    /**
+     * 构造一个与 InstalledSlot.serializeNBT 结构一致的插槽标签
+     */
+    private static CompoundTag standardSlot(UUID slotId, boolean withTaggedItem) {
+        CompoundTag slot = new CompoundTag();
+        slot.putString("slotId", slotId.toString());
+        slot.putString("templateId", "arsenalgraft:test_arm");
+        slot.putBoolean("installed", true);
+
+        CompoundTag components = new CompoundTag();
+
+        CompoundTag attribute = new CompoundTag();
+        attribute.putString("componentType", "attribute_modification");
+        attribute.putBoolean("active", true);
+        attribute.putDouble("amount", 2.5);
+        components.put("attribute", attribute);
+
+        CompoundTag inventoryComponent = new CompoundTag();
+        inventoryComponent.putString("componentType", "inventory");
+        inventoryComponent.putBoolean("active", false);
+        List<CompoundTag> items = new ArrayList<>();
+        items.add(item(0, "minecraft:diamond", 3, null));
+        if (withTaggedItem) {
+            CompoundTag tag = new CompoundTag();
+            tag.putInt("Damage", 7);
+            items.add(item(4, "minecraft:iron_sword", 1, tag));
+        }
+        ListTag itemList = new ListTag();
+        itemList.addAll(items);
+        CompoundTag inventory = new CompoundTag();
+        inventory.put("Items", itemList);
+        inventory.putInt("Size", 9);
+        inventoryComponent.put("inventory", inventory);
+        components.put("inventory", inventoryComponent);
+
+        slot.put("components", components);
+        // 插槽上的其他字段
+        slot.putLong("installedAt", 123456789L);
+        return slot;
+    }
+
+    private static CompoundTag item(int slot, String id, int count, CompoundTag tag) {
+        CompoundTag item = new CompoundTag();
+        item.putInt("Slot", slot);
+        item.putString("id", id);
+        item.putByte("Count", (byte) count);
+        if (tag != null) {
+            item.put("tag", tag);
+        }
+        return item;
+    }
+}